@@ -0,0 +1,90 @@
+package broker.loadtest;
+
+/**
+ * A fixed size log-linear histogram of latencies in nanoseconds. Each power of two is split into
+ * 32 sub-buckets, so recorded values are kept to within about 3% of their true value.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+  private final long[] counts = new long[BUCKET_COUNT];
+  private long totalCount;
+  private long maxValue;
+
+  public void record(final long value) {
+    final long nanos = Math.max(0, value);
+    this.counts[indexOf(nanos)]++;
+    this.totalCount++;
+    this.maxValue = Math.max(this.maxValue, nanos);
+  }
+
+  /**
+   * Records a latency measured against the time the operation was scheduled to start, rather than
+   * when it actually started. Using the intended start time corrects for coordinated omission: a
+   * stalled system delays every operation queued behind the stall, and those delays are counted.
+   *
+   * @param intendedStartNanos the time the operation should have started
+   * @param endNanos the time the operation completed
+   */
+  public void recordSince(final long intendedStartNanos, final long endNanos) {
+    this.record(endNanos - intendedStartNanos);
+  }
+
+  public void add(final LatencyHistogram other) {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      this.counts[i] += other.counts[i];
+    }
+    this.totalCount += other.totalCount;
+    this.maxValue = Math.max(this.maxValue, other.maxValue);
+  }
+
+  public long getTotalCount() {
+    return this.totalCount;
+  }
+
+  public long getMaxValue() {
+    return this.maxValue;
+  }
+
+  /**
+   * Gets the recorded value at the given percentile.
+   *
+   * @param percentile the percentile between 0 and 100
+   * @return the highest value of the bucket holding the percentile, capped at the maximum recorded
+   */
+  public long getValueAtPercentile(final double percentile) {
+    if (this.totalCount == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.totalCount));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += this.counts[i];
+      if (seen >= rank) {
+        return Math.min(highestValueOf(i), this.maxValue);
+      }
+    }
+    return this.maxValue;
+  }
+
+  static int indexOf(final long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    final int exponent = 63 - Long.numberOfLeadingZeros(value);
+    final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  static long highestValueOf(final int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    final int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+    final long subBucket = index % SUB_BUCKET_COUNT;
+    return ((SUB_BUCKET_COUNT + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+  }
+}
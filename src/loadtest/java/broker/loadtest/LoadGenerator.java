@@ -0,0 +1,274 @@
+package broker.loadtest;
+
+import broker.engine.StockMarketEngine;
+import broker.exceptions.OverloadException;
+import broker.models.admission.AdmissionMetrics;
+import broker.models.stocks.CommonStock;
+import broker.models.stocks.PreferredStock;
+import broker.models.stocks.Stock;
+import broker.models.trades.BuySellEnum;
+import broker.services.contracts.AdmissionControlService;
+import broker.services.contracts.FinancialAnalysisService;
+import broker.services.contracts.StockManagementService;
+import broker.services.contracts.TradeService;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives synthetic trades and analytic queries against the stock market services and reports the
+ * latency, throughput and GC behaviour of each load phase. Run with {@code ./gradlew loadTest
+ * -PloadArgs="--tradeRate=50000 --tradeThreads=16"}, see {@link LoadGeneratorConfig} for the
+ * options.
+ */
+public class LoadGenerator {
+
+  private static final String[] QUERY_TYPES = {"vwap", "index", "yield", "pe", "market"};
+
+  private final LoadGeneratorConfig config;
+  private final StockManagementService stockManagementService;
+  private final TradeService tradeService;
+  private final FinancialAnalysisService financialAnalysisService;
+  private final AdmissionControlService admissionControlService;
+
+  private final List<String> symbols = new ArrayList<>();
+  private final List<BigDecimal> basePrices = new ArrayList<>();
+  private ZipfSampler symbolSampler;
+
+  public LoadGenerator(final LoadGeneratorConfig config, final StockMarketEngine engine) {
+    this.config = config;
+    this.stockManagementService = engine.getStockManagementService();
+    this.tradeService = engine.getTradeService();
+    this.financialAnalysisService = engine.getFinancialAnalysisService();
+    this.admissionControlService = engine.getAdmissionControlService();
+  }
+
+  public static void main(final String[] args) throws Exception {
+    final LoadGeneratorConfig config = LoadGeneratorConfig.fromArgs(args);
+    try (StockMarketEngine engine =
+        StockMarketEngine.builder()
+            .retainRawTrades(config.isRetainRawTrades())
+            .overloadPolicy(config.getOverloadPolicy())
+            .ingestCapacity(config.getIngestCapacity())
+            .queryCapacity(config.getQueryCapacity())
+            .priceFromTrades(config.getTickIntervalMillis() > 0)
+            .tickIntervalMillis(config.getTickIntervalMillis())
+            .build()) {
+      new LoadGenerator(config, engine).run();
+    }
+  }
+
+  public void run() throws Exception {
+    this.createUniverse();
+    System.out.println(this.config);
+
+    this.runPhase("warmup", this.config.getWarmupSeconds(), this.config.getTradeRate());
+    this.runPhase("steady", this.config.getSteadySeconds(), this.config.getTradeRate());
+    this.runPhase(
+        "burst",
+        this.config.getBurstSeconds(),
+        this.config.getTradeRate() * this.config.getBurstMultiplier());
+  }
+
+  private void createUniverse() {
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    final List<Stock> stocks = new ArrayList<>(this.config.getStocks());
+    for (int i = 0; i < this.config.getStocks(); i++) {
+      final String symbol = String.format("S%05d", i);
+      final BigDecimal price = BigDecimal.valueOf(random.nextInt(10, 500));
+      final BigDecimal lastDividend = BigDecimal.valueOf(random.nextInt(1, 20));
+      final BigDecimal parValue = BigDecimal.valueOf(100);
+      if (random.nextDouble() < this.config.getPreferredRatio()) {
+        stocks.add(
+            new PreferredStock(symbol, lastDividend, parValue, price, new BigDecimal("0.02")));
+      } else {
+        stocks.add(new CommonStock(symbol, lastDividend, parValue, price));
+      }
+      this.symbols.add(symbol);
+      this.basePrices.add(price);
+    }
+    this.stockManagementService.registerStocks(stocks);
+    this.symbolSampler = new ZipfSampler(this.symbols.size(), this.config.getZipfExponent());
+  }
+
+  private void runPhase(final String name, final int seconds, final int tradeRate)
+      throws Exception {
+    if (seconds <= 0) {
+      return;
+    }
+    final long gcCountBefore = gcCount();
+    final long gcTimeBefore = gcTime();
+    final AdmissionMetrics admissionBefore = this.admissionControlService.getMetrics();
+    final AtomicLong rejected = new AtomicLong();
+
+    final int threads = this.config.getTradeThreads() + this.config.getQueryThreads();
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    final long start = System.nanoTime();
+    final long end = start + TimeUnit.SECONDS.toNanos(seconds);
+
+    final List<Future<LatencyHistogram[]>> tradeResults = new ArrayList<>();
+    final long tradeInterval = intervalNanos(tradeRate, this.config.getTradeThreads());
+    for (int i = 0; i < this.config.getTradeThreads(); i++) {
+      final long first = start + i * tradeInterval / this.config.getTradeThreads();
+      tradeResults.add(
+          executor.submit(() -> this.driveTrades(first, end, tradeInterval, rejected)));
+    }
+    final List<Future<LatencyHistogram[]>> queryResults = new ArrayList<>();
+    final long queryInterval =
+        intervalNanos(this.config.getQueryRate(), this.config.getQueryThreads());
+    for (int i = 0; i < this.config.getQueryThreads(); i++) {
+      final long first = start + i * queryInterval / this.config.getQueryThreads();
+      queryResults.add(
+          executor.submit(() -> this.driveQueries(first, end, queryInterval, rejected)));
+    }
+
+    final LatencyHistogram trades = new LatencyHistogram();
+    for (final Future<LatencyHistogram[]> result : tradeResults) {
+      trades.add(result.get()[0]);
+    }
+    final LatencyHistogram[] queries = new LatencyHistogram[QUERY_TYPES.length];
+    for (int type = 0; type < QUERY_TYPES.length; type++) {
+      queries[type] = new LatencyHistogram();
+      for (final Future<LatencyHistogram[]> result : queryResults) {
+        queries[type].add(result.get()[type]);
+      }
+    }
+    executor.shutdown();
+    final double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+    final AdmissionMetrics admissionAfter = this.admissionControlService.getMetrics();
+
+    System.out.printf(
+        "%n=== %s: %ds at %d trades/s target, %.1fs elapsed%n",
+        name, seconds, tradeRate, elapsedSeconds);
+    report("trade", trades, elapsedSeconds);
+    for (int type = 0; type < QUERY_TYPES.length; type++) {
+      report(QUERY_TYPES[type], queries[type], elapsedSeconds);
+    }
+    System.out.printf(
+        "rejected=%d shed=%d gc.count=%d gc.time=%dms heap.used=%dMB%n",
+        rejected.get(),
+        admissionAfter.getShedTrades() - admissionBefore.getShedTrades(),
+        gcCount() - gcCountBefore,
+        gcTime() - gcTimeBefore,
+        ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / (1024 * 1024));
+  }
+
+  private LatencyHistogram[] driveTrades(
+      final long start, final long end, final long interval, final AtomicLong rejected) {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (long intended = start; intended < end; intended += interval) {
+      waitUntil(intended);
+      final int index = this.symbolSampler.next();
+      final BigDecimal price =
+          this.basePrices.get(index).add(BigDecimal.valueOf(random.nextInt(-5, 6)));
+      try {
+        this.tradeService.recordTrade(
+            this.symbols.get(index),
+            new Date(),
+            BigInteger.valueOf(random.nextInt(1, 1000)),
+            random.nextBoolean() ? BuySellEnum.BUY : BuySellEnum.SELL,
+            price);
+        histogram.recordSince(intended, System.nanoTime());
+      } catch (final OverloadException e) {
+        rejected.incrementAndGet();
+      }
+    }
+    return new LatencyHistogram[] {histogram};
+  }
+
+  private LatencyHistogram[] driveQueries(
+      final long start, final long end, final long interval, final AtomicLong rejected) {
+    final LatencyHistogram[] histograms = new LatencyHistogram[QUERY_TYPES.length];
+    for (int type = 0; type < QUERY_TYPES.length; type++) {
+      histograms[type] = new LatencyHistogram();
+    }
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (long intended = start; intended < end; intended += interval) {
+      waitUntil(intended);
+      final int index = this.symbolSampler.next();
+      final String symbol = this.symbols.get(index);
+      final BigDecimal price = this.basePrices.get(index);
+      final int type = random.nextInt(QUERY_TYPES.length);
+      try {
+        switch (type) {
+          case 0:
+            this.financialAnalysisService.getVolumeWeightedStockPrice(symbol);
+            break;
+          case 1:
+            this.financialAnalysisService.getAllShareIndex();
+            break;
+          case 2:
+            this.financialAnalysisService.getDividendYield(symbol, price);
+            break;
+          case 3:
+            this.financialAnalysisService.getPeRatio(symbol, price);
+            break;
+          default:
+            this.financialAnalysisService.getMarketVolumeWeightedPrice();
+            break;
+        }
+        histograms[type].recordSince(intended, System.nanoTime());
+      } catch (final OverloadException e) {
+        rejected.incrementAndGet();
+      }
+    }
+    return histograms;
+  }
+
+  private static void report(
+      final String name, final LatencyHistogram histogram, final double elapsedSeconds) {
+    System.out.printf(
+        "%-6s count=%-9d rate=%-9.0f p50=%-9s p90=%-9s p99=%-9s p99.9=%-9s max=%s%n",
+        name,
+        histogram.getTotalCount(),
+        histogram.getTotalCount() / elapsedSeconds,
+        micros(histogram.getValueAtPercentile(50)),
+        micros(histogram.getValueAtPercentile(90)),
+        micros(histogram.getValueAtPercentile(99)),
+        micros(histogram.getValueAtPercentile(99.9)),
+        micros(histogram.getMaxValue()));
+  }
+
+  private static String micros(final long nanos) {
+    return nanos / 1000 + "us";
+  }
+
+  private static long intervalNanos(final int rate, final int threads) {
+    return Math.max(1, TimeUnit.SECONDS.toNanos(1) * threads / Math.max(1, rate));
+  }
+
+  private static void waitUntil(final long nanoTime) {
+    long remaining;
+    while ((remaining = nanoTime - System.nanoTime()) > 0) {
+      LockSupport.parkNanos(remaining);
+    }
+  }
+
+  private static long gcCount() {
+    long count = 0;
+    for (final GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(0, gc.getCollectionCount());
+    }
+    return count;
+  }
+
+  private static long gcTime() {
+    long time = 0;
+    for (final GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      time += Math.max(0, gc.getCollectionTime());
+    }
+    return time;
+  }
+}
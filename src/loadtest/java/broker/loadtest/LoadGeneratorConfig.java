@@ -0,0 +1,123 @@
+package broker.loadtest;
+
+import static broker.constants.ServiceConstants.DEFAULT_INGEST_CAPACITY;
+import static broker.constants.ServiceConstants.DEFAULT_QUERY_CAPACITY;
+
+import broker.models.admission.OverloadPolicy;
+import lombok.Data;
+
+@Data
+public class LoadGeneratorConfig {
+
+  private int stocks = 1000;
+
+  private double preferredRatio = 0.2;
+
+  private double zipfExponent = 1.1;
+
+  private int tradeThreads = 8;
+
+  /** Trades per second across all trade threads. */
+  private int tradeRate = 20000;
+
+  private int queryThreads = 2;
+
+  /** Queries per second across all query threads. */
+  private int queryRate = 2000;
+
+  /** How often the conflated price ticks from trades are applied, 0 to not update prices. */
+  private long tickIntervalMillis = 100;
+
+  private int warmupSeconds = 10;
+
+  private int steadySeconds = 30;
+
+  private int burstSeconds = 10;
+
+  /** The multiple of the trade rate driven during the burst phase. */
+  private int burstMultiplier = 10;
+
+  /** False to keep only the volume profile of each stock and discard the raw trades. */
+  private boolean retainRawTrades = true;
+
+  /** The policy applied when the ingest capacity of the engine is exhausted. */
+  private OverloadPolicy overloadPolicy = OverloadPolicy.BLOCK;
+
+  /** The number of trades the engine records concurrently. */
+  private int ingestCapacity = DEFAULT_INGEST_CAPACITY;
+
+  /** The number of analytic queries the engine runs concurrently. */
+  private int queryCapacity = DEFAULT_QUERY_CAPACITY;
+
+  /**
+   * Reads the configuration from arguments of the form {@code --name=value}, where name is one of
+   * the fields of this class. Missing arguments keep their defaults.
+   *
+   * @param args the command line arguments
+   * @return the LoadGeneratorConfig
+   */
+  public static LoadGeneratorConfig fromArgs(final String[] args) {
+    final LoadGeneratorConfig config = new LoadGeneratorConfig();
+    for (final String arg : args) {
+      final int split = arg.indexOf('=');
+      if (!arg.startsWith("--") || split < 0) {
+        throw new IllegalArgumentException("Expected --name=value but found " + arg);
+      }
+      final String name = arg.substring(2, split);
+      final String value = arg.substring(split + 1);
+      switch (name) {
+        case "stocks":
+          config.setStocks(Integer.parseInt(value));
+          break;
+        case "preferredRatio":
+          config.setPreferredRatio(Double.parseDouble(value));
+          break;
+        case "zipfExponent":
+          config.setZipfExponent(Double.parseDouble(value));
+          break;
+        case "tradeThreads":
+          config.setTradeThreads(Integer.parseInt(value));
+          break;
+        case "tradeRate":
+          config.setTradeRate(Integer.parseInt(value));
+          break;
+        case "queryThreads":
+          config.setQueryThreads(Integer.parseInt(value));
+          break;
+        case "queryRate":
+          config.setQueryRate(Integer.parseInt(value));
+          break;
+        case "tickIntervalMillis":
+          config.setTickIntervalMillis(Long.parseLong(value));
+          break;
+        case "warmupSeconds":
+          config.setWarmupSeconds(Integer.parseInt(value));
+          break;
+        case "steadySeconds":
+          config.setSteadySeconds(Integer.parseInt(value));
+          break;
+        case "burstSeconds":
+          config.setBurstSeconds(Integer.parseInt(value));
+          break;
+        case "burstMultiplier":
+          config.setBurstMultiplier(Integer.parseInt(value));
+          break;
+        case "retainRawTrades":
+          config.setRetainRawTrades(Boolean.parseBoolean(value));
+          break;
+        case "overloadPolicy":
+          config.setOverloadPolicy(OverloadPolicy.valueOf(value.toUpperCase()));
+          break;
+        case "ingestCapacity":
+          config.setIngestCapacity(Integer.parseInt(value));
+          break;
+        case "queryCapacity":
+          config.setQueryCapacity(Integer.parseInt(value));
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown load generator option " + name);
+      }
+    }
+    return config;
+  }
+}
@@ -0,0 +1,28 @@
+package broker.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/** Samples indexes in [0, size) with Zipf distributed popularity, index 0 being the most popular. */
+public class ZipfSampler {
+
+  private final double[] cumulative;
+
+  public ZipfSampler(final int size, final double exponent) {
+    this.cumulative = new double[size];
+    double total = 0;
+    for (int i = 0; i < size; i++) {
+      total += 1 / Math.pow(i + 1, exponent);
+      this.cumulative[i] = total;
+    }
+    for (int i = 0; i < size; i++) {
+      this.cumulative[i] /= total;
+    }
+  }
+
+  public int next() {
+    final int index =
+        Arrays.binarySearch(this.cumulative, ThreadLocalRandom.current().nextDouble());
+    return Math.min(index >= 0 ? index : -index - 1, this.cumulative.length - 1);
+  }
+}
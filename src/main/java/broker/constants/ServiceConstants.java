@@ -3,5 +3,27 @@ package broker.constants;
 public class ServiceConstants {
   public static final int PRECISION_SCALE = 7;
 
+  public static final long TRADE_WINDOW_MILLIS = 15 * 60 * 1000;
+
+  public static final long DEFAULT_EMA_HALF_LIFE_MILLIS = 60 * 1000;
+
+  public static final long DEFAULT_PROFILE_BUCKET_MILLIS = 1000;
+
+  public static final int VALUE_AREA_PERCENT = 70;
+
+  /** One trade in flight per core, more only adds contention on the shared stock state. */
+  public static final int DEFAULT_INGEST_CAPACITY = Runtime.getRuntime().availableProcessors();
+
+  public static final int DEFAULT_QUERY_CAPACITY = 64;
+
+  public static final long DEFAULT_ADMISSION_WAIT_MILLIS = 100;
+
+  public static final long DEFAULT_RETRY_AFTER_MILLIS = 50;
+
+  public static final int DEFAULT_SYMBOL_PRIORITY = 0;
+
+  /** Nothing is shed until a shed priority at or above some symbol's priority is set. */
+  public static final int DEFAULT_SHED_PRIORITY = Integer.MIN_VALUE;
+
   public ServiceConstants() {}
 }
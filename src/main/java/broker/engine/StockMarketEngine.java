@@ -0,0 +1,241 @@
+package broker.engine;
+
+import static broker.constants.ServiceConstants.DEFAULT_ADMISSION_WAIT_MILLIS;
+import static broker.constants.ServiceConstants.DEFAULT_EMA_HALF_LIFE_MILLIS;
+import static broker.constants.ServiceConstants.DEFAULT_INGEST_CAPACITY;
+import static broker.constants.ServiceConstants.DEFAULT_PROFILE_BUCKET_MILLIS;
+import static broker.constants.ServiceConstants.DEFAULT_QUERY_CAPACITY;
+import static broker.constants.ServiceConstants.DEFAULT_RETRY_AFTER_MILLIS;
+
+import broker.models.admission.OverloadPolicy;
+import broker.models.statistics.StatisticType;
+import broker.services.contracts.AdmissionControlService;
+import broker.services.contracts.FinancialAnalysisService;
+import broker.services.contracts.MarketDataService;
+import broker.services.contracts.RollingStatisticsService;
+import broker.services.contracts.StockManagementService;
+import broker.services.contracts.TradeService;
+import broker.services.impls.AdmissionControlServiceImpl;
+import broker.services.impls.FinancialAnalysisServiceImpl;
+import broker.services.impls.MarketDataServiceImpl;
+import broker.services.impls.RollingStatisticsTracker;
+import broker.services.impls.StockManagementServiceImpl;
+import broker.services.impls.TradeServiceImpl;
+import broker.services.impls.VolumeProfileTracker;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wires the stock market services together with plain constructors, so the market can be embedded
+ * without a dependency injection container. The Spring Boot application exposes the services of a
+ * single engine as beans. Close the engine to stop its tick cycle.
+ */
+public class StockMarketEngine implements AutoCloseable {
+
+  private final StockManagementService stockManagementService;
+  private final AdmissionControlService admissionControlService;
+  private final MarketDataService marketDataService;
+  private final TradeService tradeService;
+  private final RollingStatisticsService financialAnalysisService;
+  private final ScheduledExecutorService tickCycle;
+
+  private StockMarketEngine(final Builder builder) {
+    this.stockManagementService = new StockManagementServiceImpl();
+    this.admissionControlService =
+        new AdmissionControlServiceImpl(
+            builder.ingestCapacity,
+            builder.queryCapacity,
+            builder.admissionWaitMillis,
+            builder.retryAfterMillis);
+    this.admissionControlService.setOverloadPolicy(builder.overloadPolicy);
+    final MarketDataServiceImpl marketDataService =
+        new MarketDataServiceImpl(this.stockManagementService);
+    marketDataService.setPriceFromTrades(builder.priceFromTrades);
+    this.marketDataService = marketDataService;
+    final RollingStatisticsTracker rollingStatisticsTracker =
+        new RollingStatisticsTracker(builder.statistics, builder.emaHalfLifeMillis);
+    final VolumeProfileTracker volumeProfileTracker =
+        new VolumeProfileTracker(builder.profileBucketMillis, builder.retainRawTrades);
+    this.stockManagementService.addDeregistrationListener(rollingStatisticsTracker::remove);
+    this.stockManagementService.addDeregistrationListener(volumeProfileTracker::remove);
+    this.tradeService =
+        new TradeServiceImpl(
+            this.stockManagementService,
+            this.admissionControlService,
+            marketDataService,
+            rollingStatisticsTracker,
+            volumeProfileTracker);
+    this.financialAnalysisService =
+        new FinancialAnalysisServiceImpl(
+            this.stockManagementService,
+            this.admissionControlService,
+            rollingStatisticsTracker,
+            volumeProfileTracker);
+
+    if (builder.tickIntervalMillis > 0) {
+      this.tickCycle =
+          Executors.newSingleThreadScheduledExecutor(
+              runnable -> {
+                final Thread thread = new Thread(runnable, "market-data-tick-cycle");
+                thread.setDaemon(true);
+                return thread;
+              });
+      this.tickCycle.scheduleAtFixedRate(
+          this::applyPendingTicks,
+          builder.tickIntervalMillis,
+          builder.tickIntervalMillis,
+          TimeUnit.MILLISECONDS);
+    } else {
+      this.tickCycle = null;
+    }
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public StockManagementService getStockManagementService() {
+    return this.stockManagementService;
+  }
+
+  public AdmissionControlService getAdmissionControlService() {
+    return this.admissionControlService;
+  }
+
+  public MarketDataService getMarketDataService() {
+    return this.marketDataService;
+  }
+
+  public TradeService getTradeService() {
+    return this.tradeService;
+  }
+
+  public FinancialAnalysisService getFinancialAnalysisService() {
+    return this.financialAnalysisService;
+  }
+
+  public RollingStatisticsService getRollingStatisticsService() {
+    return this.financialAnalysisService;
+  }
+
+  /**
+   * Runs one tick cycle. An exception thrown by a scheduled task cancels every later run, so a
+   * failed cycle is reported and the cycle carries on with the ticks queued after it.
+   */
+  private void applyPendingTicks() {
+    try {
+      this.marketDataService.applyPendingTicks();
+    } catch (final RuntimeException e) {
+      Thread.currentThread()
+          .getUncaughtExceptionHandler()
+          .uncaughtException(Thread.currentThread(), e);
+    }
+  }
+
+  /** Stops the tick cycle, if one was configured. Ticks still queued are left unapplied. */
+  @Override
+  public void close() {
+    if (this.tickCycle != null) {
+      this.tickCycle.shutdownNow();
+    }
+  }
+
+  public static class Builder {
+
+    private int ingestCapacity = DEFAULT_INGEST_CAPACITY;
+    private int queryCapacity = DEFAULT_QUERY_CAPACITY;
+    private long admissionWaitMillis = DEFAULT_ADMISSION_WAIT_MILLIS;
+    private long retryAfterMillis = DEFAULT_RETRY_AFTER_MILLIS;
+    private OverloadPolicy overloadPolicy = OverloadPolicy.BLOCK;
+    private boolean priceFromTrades;
+    private Set<StatisticType> statistics = EnumSet.allOf(StatisticType.class);
+    private long emaHalfLifeMillis = DEFAULT_EMA_HALF_LIFE_MILLIS;
+    private long profileBucketMillis = DEFAULT_PROFILE_BUCKET_MILLIS;
+    private boolean retainRawTrades = true;
+    private long tickIntervalMillis;
+
+    private Builder() {}
+
+    /** @param ingestCapacity the number of trades that may be recorded concurrently */
+    public Builder ingestCapacity(final int ingestCapacity) {
+      this.ingestCapacity = ingestCapacity;
+      return this;
+    }
+
+    /** @param queryCapacity the number of analytic queries that may run concurrently */
+    public Builder queryCapacity(final int queryCapacity) {
+      this.queryCapacity = queryCapacity;
+      return this;
+    }
+
+    /** @param admissionWaitMillis how long a trade or query may wait for capacity */
+    public Builder admissionWaitMillis(final long admissionWaitMillis) {
+      this.admissionWaitMillis = admissionWaitMillis;
+      return this;
+    }
+
+    /** @param retryAfterMillis the retry hint given with a rejected trade or query */
+    public Builder retryAfterMillis(final long retryAfterMillis) {
+      this.retryAfterMillis = retryAfterMillis;
+      return this;
+    }
+
+    /** @param overloadPolicy the policy applied when the ingest capacity is exhausted */
+    public Builder overloadPolicy(final OverloadPolicy overloadPolicy) {
+      this.overloadPolicy = overloadPolicy;
+      return this;
+    }
+
+    /** @param priceFromTrades true to update the last price of a stock from its recorded trades */
+    public Builder priceFromTrades(final boolean priceFromTrades) {
+      this.priceFromTrades = priceFromTrades;
+      return this;
+    }
+
+    /** @param statistics the rolling statistics maintained for every stock, all by default */
+    public Builder statistics(final StatisticType... statistics) {
+      this.statistics = EnumSet.noneOf(StatisticType.class);
+      this.statistics.addAll(Arrays.asList(statistics));
+      return this;
+    }
+
+    /** @param emaHalfLifeMillis the time for a trade's weight in the EMA to halve */
+    public Builder emaHalfLifeMillis(final long emaHalfLifeMillis) {
+      this.emaHalfLifeMillis = emaHalfLifeMillis;
+      return this;
+    }
+
+    /** @param profileBucketMillis the time covered by each bucket of the volume profiles */
+    public Builder profileBucketMillis(final long profileBucketMillis) {
+      this.profileBucketMillis = profileBucketMillis;
+      return this;
+    }
+
+    /**
+     * @param retainRawTrades false to keep only the volume profile of each stock, leaving its
+     *     trade ledger empty. The 15 minute window then starts at the first whole profile bucket
+     *     inside it, and {@link TradeService#getLast15MinutesTrades} is unavailable.
+     */
+    public Builder retainRawTrades(final boolean retainRawTrades) {
+      this.retainRawTrades = retainRawTrades;
+      return this;
+    }
+
+    /**
+     * @param tickIntervalMillis how often a daemon thread applies the queued price ticks, or zero
+     *     (the default) to leave calling {@link MarketDataService#applyPendingTicks()} to the caller
+     */
+    public Builder tickIntervalMillis(final long tickIntervalMillis) {
+      this.tickIntervalMillis = tickIntervalMillis;
+      return this;
+    }
+
+    public StockMarketEngine build() {
+      return new StockMarketEngine(this);
+    }
+  }
+}
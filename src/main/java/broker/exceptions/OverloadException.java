@@ -0,0 +1,18 @@
+package broker.exceptions;
+
+public class OverloadException extends BusinessException {
+
+  private static final long serialVersionUID = 2871640539127664012L;
+
+  private final long retryAfterMillis;
+
+  public OverloadException(final String message, final long retryAfterMillis) {
+    super(message);
+    this.retryAfterMillis = retryAfterMillis;
+  }
+
+  /** @return how long the caller should wait before retrying the rejected request */
+  public long getRetryAfterMillis() {
+    return this.retryAfterMillis;
+  }
+}
@@ -0,0 +1,25 @@
+package broker.models.admission;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AdmissionMetrics {
+
+  private int ingestInFlight;
+
+  private int ingestQueueDepth;
+
+  private int queryInFlight;
+
+  private int queryQueueDepth;
+
+  private long admittedTrades;
+
+  private long rejectedTrades;
+
+  private long shedTrades;
+
+  private long rejectedQueries;
+}
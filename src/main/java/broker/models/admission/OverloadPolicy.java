@@ -0,0 +1,10 @@
+package broker.models.admission;
+
+public enum OverloadPolicy {
+  /** Wait for ingest capacity, up to the configured admission wait. */
+  BLOCK,
+  /** Fail straight away with a retry hint when ingest capacity is exhausted. */
+  REJECT,
+  /** Drop trades for low priority symbols when ingest capacity is exhausted, block the rest. */
+  SHED
+}
@@ -0,0 +1,18 @@
+package broker.models.profile;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import lombok.Value;
+
+@Value
+public class ValueArea {
+
+  /** The lowest price level in the value area. */
+  private BigDecimal low;
+
+  /** The highest price level in the value area. */
+  private BigDecimal high;
+
+  /** The volume traded within the value area. */
+  private BigInteger volume;
+}
@@ -0,0 +1,190 @@
+package broker.models.profile;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The traded volume at each price level of a single stock, kept per time bucket over a sliding
+ * window. Trades at a price already seen in their bucket only add to that level, and the levels,
+ * notional and volume of the whole window are kept as running totals updated as trades are added
+ * and buckets are evicted, so reads do not depend on the number of buckets.
+ *
+ * <p>The running totals cover the buckets which start inside the window. When raw trades are
+ * retained each bucket also keeps its own trades, so those of the bucket straddling the start of
+ * the window are read from it whatever order they arrived in, and the window is exact. Without
+ * them the trades of that bucket are left out and the window starts at the next bucket.
+ */
+public class VolumeProfile {
+
+  private final long bucketMillis;
+  private final long windowMillis;
+  private final boolean retainTrades;
+
+  private final TreeMap<Long, Bucket> buckets = new TreeMap<>();
+
+  private final TreeMap<BigDecimal, BigInteger> windowLevels = new TreeMap<>();
+  private BigDecimal windowNotional = BigDecimal.ZERO;
+  private BigInteger windowVolume = BigInteger.ZERO;
+
+  private long cutoff = Long.MIN_VALUE;
+
+  /**
+   * @param bucketMillis the time covered by each bucket
+   * @param windowMillis the length of the sliding window
+   * @param retainTrades true to keep the raw trades of each bucket, so the start of the window is
+   *     exact
+   */
+  public VolumeProfile(
+      final long bucketMillis, final long windowMillis, final boolean retainTrades) {
+    this.bucketMillis = bucketMillis;
+    this.windowMillis = windowMillis;
+    this.retainTrades = retainTrades;
+  }
+
+  /**
+   * Adds a trade to the price level of its bucket.
+   *
+   * @param timestamp the time of the trade in milliseconds
+   * @param price the traded price
+   * @param quantity the traded quantity
+   * @param now the current time in milliseconds
+   */
+  public synchronized void add(
+      final long timestamp, final BigDecimal price, final BigInteger quantity, final long now) {
+    this.evict(now);
+
+    final long start = this.bucketOf(timestamp);
+    if (timestamp < this.cutoff || (start < this.cutoff && !this.retainTrades)) {
+      return;
+    }
+    final Bucket bucket = this.buckets.computeIfAbsent(start, key -> new Bucket());
+    if (this.retainTrades) {
+      bucket.trades.add(new Trade(timestamp, price, quantity));
+    }
+    if (start < this.cutoff) {
+      // The bucket straddles the start of the window, so is read from its trades.
+      return;
+    }
+    bucket.levels.merge(price, quantity, BigInteger::add);
+    this.windowLevels.merge(price, quantity, BigInteger::add);
+    this.windowNotional = this.windowNotional.add(price.multiply(new BigDecimal(quantity)));
+    this.windowVolume = this.windowVolume.add(quantity);
+  }
+
+  /**
+   * Gets the volume traded at each price level in the window ending now.
+   *
+   * @param now the current time in milliseconds
+   * @return the traded volume keyed by price, in ascending price order
+   */
+  public synchronized TreeMap<BigDecimal, BigInteger> getPriceLevels(final long now) {
+    this.evict(now);
+    final TreeMap<BigDecimal, BigInteger> levels = new TreeMap<>(this.windowLevels);
+    for (final Trade trade : this.edgeTrades()) {
+      levels.merge(trade.price, trade.quantity, BigInteger::add);
+    }
+    return levels;
+  }
+
+  /**
+   * Gets the traded notional and volume in the window ending now.
+   *
+   * @param now the current time in milliseconds
+   * @return the totals of the window
+   */
+  public synchronized VolumeTotals getTotals(final long now) {
+    this.evict(now);
+    BigDecimal notional = this.windowNotional;
+    BigInteger volume = this.windowVolume;
+    for (final Trade trade : this.edgeTrades()) {
+      notional = notional.add(trade.price.multiply(new BigDecimal(trade.quantity)));
+      volume = volume.add(trade.quantity);
+    }
+    return new VolumeTotals(notional, volume);
+  }
+
+  /**
+   * Moves the start of the window up to now, taking the buckets which start before it out of the
+   * running totals. Buckets wholly before the window are dropped, and the bucket straddling its
+   * start is kept for its trades.
+   */
+  private void evict(final long now) {
+    final long windowStart = now - this.windowMillis;
+    if (windowStart <= this.cutoff) {
+      return;
+    }
+    final long previousCutoff = this.cutoff;
+    this.cutoff = windowStart;
+
+    final Iterator<Map.Entry<Long, Bucket>> expired =
+        this.buckets.headMap(windowStart, false).entrySet().iterator();
+    while (expired.hasNext()) {
+      final Map.Entry<Long, Bucket> entry = expired.next();
+      final long start = entry.getKey();
+      final Bucket bucket = entry.getValue();
+      if (start >= previousCutoff) {
+        for (final Map.Entry<BigDecimal, BigInteger> level : bucket.levels.entrySet()) {
+          final BigDecimal price = level.getKey();
+          final BigInteger quantity = level.getValue();
+          this.windowLevels.computeIfPresent(
+              price, (key, volume) -> volume.equals(quantity) ? null : volume.subtract(quantity));
+          this.windowNotional =
+              this.windowNotional.subtract(price.multiply(new BigDecimal(quantity)));
+          this.windowVolume = this.windowVolume.subtract(quantity);
+        }
+        bucket.levels.clear();
+      }
+      if (!this.retainTrades || start + this.bucketMillis <= windowStart) {
+        expired.remove();
+      }
+    }
+  }
+
+  /**
+   * @return the trades inside the window which fall in the bucket straddling its start, so are not
+   *     in the running totals
+   */
+  private List<Trade> edgeTrades() {
+    final Map.Entry<Long, Bucket> edge = this.buckets.lowerEntry(this.cutoff);
+    if (edge == null) {
+      return Collections.emptyList();
+    }
+    final List<Trade> result = new ArrayList<>();
+    for (final Trade trade : edge.getValue().trades) {
+      if (trade.timestamp >= this.cutoff) {
+        result.add(trade);
+      }
+    }
+    return result;
+  }
+
+  private long bucketOf(final long timestamp) {
+    return Math.floorDiv(timestamp, this.bucketMillis) * this.bucketMillis;
+  }
+
+  /** The price levels of a bucket inside the window, and its trades if they are retained. */
+  private static final class Bucket {
+
+    private final TreeMap<BigDecimal, BigInteger> levels = new TreeMap<>();
+    private final List<Trade> trades = new ArrayList<>();
+  }
+
+  private static final class Trade {
+
+    private final long timestamp;
+    private final BigDecimal price;
+    private final BigInteger quantity;
+
+    Trade(final long timestamp, final BigDecimal price, final BigInteger quantity) {
+      this.timestamp = timestamp;
+      this.price = price;
+      this.quantity = quantity;
+    }
+  }
+}
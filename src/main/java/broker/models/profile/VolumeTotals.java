@@ -0,0 +1,15 @@
+package broker.models.profile;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import lombok.Value;
+
+@Value
+public class VolumeTotals {
+
+  /** The sum of price times quantity of the trades. */
+  private BigDecimal notional;
+
+  /** The total quantity of the trades. */
+  private BigInteger volume;
+}
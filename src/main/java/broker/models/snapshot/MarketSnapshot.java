@@ -0,0 +1,20 @@
+package broker.models.snapshot;
+
+import java.util.Map;
+import lombok.Value;
+
+@Value
+public class MarketSnapshot {
+
+  /** Incremented every time a new snapshot is published. */
+  private long version;
+
+  /** An unmodifiable view of the quotes of every registered stock, keyed by symbol. */
+  private Map<String, StockQuote> quotes;
+
+  /** The sum of the natural logs of every positive quote price, kept for the All Share Index. */
+  private double logPriceSum;
+
+  /** The number of quotes whose price is zero or negative. */
+  private int nonPositivePriceCount;
+}
@@ -0,0 +1,19 @@
+package broker.models.snapshot;
+
+import java.math.BigDecimal;
+import lombok.Value;
+
+@Value
+public class StockQuote {
+
+  private String symbol;
+
+  private BigDecimal lastDividend;
+
+  private BigDecimal parValue;
+
+  private BigDecimal price;
+
+  /** The fixed dividend of a preferred stock, null for a common stock. */
+  private BigDecimal fixedDividend;
+}
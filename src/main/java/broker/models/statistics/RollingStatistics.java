@@ -0,0 +1,188 @@
+package broker.models.statistics;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Streaming statistics of the trade prices of a single stock over a sliding time window. Trades
+ * are kept in timestamp order whatever order they arrive in, so a late trade leaves the window at
+ * the same time as it leaves the VWAP window. Every trade is folded in and evicted in O(log n) and
+ * every read is O(1) apart from evicting expired trades: variance of the log returns between
+ * consecutive trades uses Welford's algorithm with removal, the high and low use a count of the
+ * trades at each price and the EMA decays with the time between trades.
+ */
+public class RollingStatistics {
+
+  private final boolean volatility;
+  private final boolean simpleMovingAverage;
+  private final boolean exponentialMovingAverage;
+  private final boolean highLow;
+  private final long windowMillis;
+  private final double emaDecayPerMilli;
+
+  private final TreeSet<Sample> window =
+      new TreeSet<>(
+          Comparator.comparingLong((Sample sample) -> sample.timestamp)
+              .thenComparingLong(sample -> sample.sequence));
+  private final TreeMap<BigDecimal, Integer> prices = new TreeMap<>();
+  private long sequence;
+
+  private long latestTimestamp = Long.MIN_VALUE;
+
+  private double priceSum;
+  private int returnCount;
+  private double returnMean;
+  private double returnM2;
+
+  private boolean emaSeeded;
+  private double ema;
+  private long emaTimestamp;
+
+  public RollingStatistics(
+      final Set<StatisticType> statistics, final long windowMillis, final long emaHalfLifeMillis) {
+    this.volatility = statistics.contains(StatisticType.VOLATILITY);
+    this.simpleMovingAverage = statistics.contains(StatisticType.SIMPLE_MOVING_AVERAGE);
+    this.exponentialMovingAverage = statistics.contains(StatisticType.EXPONENTIAL_MOVING_AVERAGE);
+    this.highLow = statistics.contains(StatisticType.HIGH_LOW);
+    this.windowMillis = windowMillis;
+    this.emaDecayPerMilli = Math.log(2) / emaHalfLifeMillis;
+  }
+
+  /**
+   * Folds a trade into the statistics.
+   *
+   * @param timestamp the time of the trade in milliseconds
+   * @param price the traded price
+   * @param now the current time in milliseconds
+   */
+  public synchronized void add(final long timestamp, final BigDecimal price, final long now) {
+    if (now - timestamp > this.windowMillis) {
+      return;
+    }
+    final double value = price.doubleValue();
+    this.evict(now);
+
+    if (this.exponentialMovingAverage) {
+      // A trade older than the latest has no time to decay over, so it leaves the EMA unchanged.
+      final long time = Math.max(timestamp, this.latestTimestamp);
+      if (this.emaSeeded) {
+        final double alpha = 1 - Math.exp(-this.emaDecayPerMilli * (time - this.emaTimestamp));
+        this.ema += alpha * (value - this.ema);
+      } else {
+        this.ema = value;
+        this.emaSeeded = true;
+      }
+      this.emaTimestamp = time;
+    }
+    this.latestTimestamp = Math.max(timestamp, this.latestTimestamp);
+
+    if (!this.volatility && !this.simpleMovingAverage && !this.highLow) {
+      return;
+    }
+    final Sample sample = new Sample(timestamp, this.sequence++, price, value);
+    if (this.volatility) {
+      final Sample previous = this.window.lower(sample);
+      final Sample next = this.window.higher(sample);
+      if (previous != null && next != null) {
+        this.removeReturn(Math.log(next.value / previous.value));
+      }
+      if (previous != null) {
+        this.addReturn(Math.log(value / previous.value));
+      }
+      if (next != null) {
+        this.addReturn(Math.log(next.value / value));
+      }
+    }
+    this.window.add(sample);
+    this.priceSum += value;
+    if (this.highLow) {
+      this.prices.merge(price, 1, Integer::sum);
+    }
+  }
+
+  /** @return the sample standard deviation of the log returns in the window, 0 if under two */
+  public synchronized double getVolatility(final long now) {
+    this.evict(now);
+    if (this.returnCount < 2) {
+      return 0;
+    }
+    return Math.sqrt(Math.max(0, this.returnM2 / (this.returnCount - 1)));
+  }
+
+  /** @return the mean trade price in the window, 0 if there are no trades */
+  public synchronized double getSimpleMovingAverage(final long now) {
+    this.evict(now);
+    return this.window.isEmpty() ? 0 : this.priceSum / this.window.size();
+  }
+
+  /** @return the exponential moving average of the trade price, 0 if there are no trades */
+  public synchronized double getExponentialMovingAverage() {
+    return this.emaSeeded ? this.ema : 0;
+  }
+
+  /** @return the highest trade price in the window, null if there are no trades */
+  public synchronized BigDecimal getHigh(final long now) {
+    this.evict(now);
+    return this.prices.isEmpty() ? null : this.prices.lastKey();
+  }
+
+  /** @return the lowest trade price in the window, null if there are no trades */
+  public synchronized BigDecimal getLow(final long now) {
+    this.evict(now);
+    return this.prices.isEmpty() ? null : this.prices.firstKey();
+  }
+
+  private void evict(final long now) {
+    final long cutoff = now - this.windowMillis;
+    while (!this.window.isEmpty() && this.window.first().timestamp < cutoff) {
+      final Sample expired = this.window.pollFirst();
+      this.priceSum -= expired.value;
+      if (this.volatility && !this.window.isEmpty()) {
+        this.removeReturn(Math.log(this.window.first().value / expired.value));
+      }
+      if (this.highLow) {
+        this.prices.computeIfPresent(expired.price, (key, count) -> count == 1 ? null : count - 1);
+      }
+    }
+    if (this.window.isEmpty()) {
+      this.priceSum = 0;
+    }
+  }
+
+  private void addReturn(final double logReturn) {
+    this.returnCount++;
+    final double delta = logReturn - this.returnMean;
+    this.returnMean += delta / this.returnCount;
+    this.returnM2 += delta * (logReturn - this.returnMean);
+  }
+
+  private void removeReturn(final double logReturn) {
+    this.returnCount--;
+    if (this.returnCount == 0) {
+      this.returnMean = 0;
+      this.returnM2 = 0;
+      return;
+    }
+    final double previousMean = this.returnMean;
+    this.returnMean -= (logReturn - previousMean) / this.returnCount;
+    this.returnM2 -= (logReturn - previousMean) * (logReturn - this.returnMean);
+  }
+
+  private static class Sample {
+
+    private final long timestamp;
+    private final long sequence;
+    private final BigDecimal price;
+    private final double value;
+
+    Sample(final long timestamp, final long sequence, final BigDecimal price, final double value) {
+      this.timestamp = timestamp;
+      this.sequence = sequence;
+      this.price = price;
+      this.value = value;
+    }
+  }
+}
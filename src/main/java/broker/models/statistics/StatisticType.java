@@ -0,0 +1,12 @@
+package broker.models.statistics;
+
+public enum StatisticType {
+  /** Standard deviation of the log returns between consecutive trades in the window. */
+  VOLATILITY,
+  /** Mean trade price in the window. */
+  SIMPLE_MOVING_AVERAGE,
+  /** Time decayed average trade price. */
+  EXPONENTIAL_MOVING_AVERAGE,
+  /** Highest and lowest trade price in the window. */
+  HIGH_LOW
+}
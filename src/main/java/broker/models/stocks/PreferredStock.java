@@ -4,7 +4,7 @@ import java.math.BigDecimal;
 
 public class PreferredStock extends Stock {
 
-  private BigDecimal fixedDividend;
+  private volatile BigDecimal fixedDividend;
 
   public PreferredStock(
       final String symbol,
@@ -22,5 +22,6 @@ public class PreferredStock extends Stock {
 
   public void setFixedDividend(final BigDecimal fixedDividend) {
     this.fixedDividend = fixedDividend;
+    this.fireChanged();
   }
 }
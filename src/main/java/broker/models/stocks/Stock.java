@@ -3,22 +3,38 @@ package broker.models.stocks;
 import broker.models.trades.TradeLedger;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
 public abstract class Stock {
 
   private String symbol;
 
-  private BigDecimal lastDividend;
+  private volatile BigDecimal lastDividend;
 
-  private BigDecimal parValue;
+  private volatile BigDecimal parValue;
 
-  private BigDecimal price;
+  private volatile BigDecimal price;
 
+  /** Synchronized, so iterate it while holding its lock. */
+  @Setter(AccessLevel.NONE)
   private List<TradeLedger> tradeLedger;
 
+  /** Attached by the market on registration, told whenever a quoted field changes. */
+  @Getter(AccessLevel.NONE)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private final AtomicReference<Consumer<Stock>> changeListener = new AtomicReference<>();
+
   Stock(
       final String symbol,
       final BigDecimal lastDividend,
@@ -28,10 +44,51 @@ public abstract class Stock {
     this.lastDividend = lastDividend;
     this.parValue = parValue;
     this.price = price;
-    this.tradeLedger = new ArrayList<>();
+    this.tradeLedger = Collections.synchronizedList(new ArrayList<>());
   }
 
   public void addNewTrade(final TradeLedger tradeLedger) {
     this.tradeLedger.add(tradeLedger);
   }
+
+  public void setLastDividend(final BigDecimal lastDividend) {
+    this.lastDividend = lastDividend;
+    this.fireChanged();
+  }
+
+  public void setParValue(final BigDecimal parValue) {
+    this.parValue = parValue;
+    this.fireChanged();
+  }
+
+  public void setPrice(final BigDecimal price) {
+    this.price = price;
+    this.fireChanged();
+  }
+
+  /**
+   * Attaches the listener told whenever a quoted field changes.
+   *
+   * @param listener the listener of the market the stock is registered with
+   * @return false if the stock already has a listener, so is registered with another market
+   */
+  public boolean attachChangeListener(final Consumer<Stock> listener) {
+    return this.changeListener.compareAndSet(null, listener);
+  }
+
+  /**
+   * Detaches the given listener, leaving any other listener attached.
+   *
+   * @param listener the listener attached on registration
+   */
+  public void detachChangeListener(final Consumer<Stock> listener) {
+    this.changeListener.compareAndSet(listener, null);
+  }
+
+  protected void fireChanged() {
+    final Consumer<Stock> listener = this.changeListener.get();
+    if (listener != null) {
+      listener.accept(this);
+    }
+  }
 }
@@ -0,0 +1,55 @@
+package broker.services.contracts;
+
+import broker.models.admission.AdmissionMetrics;
+import broker.models.admission.OverloadPolicy;
+
+public interface AdmissionControlService {
+  /**
+   * Admits a trade for the given stock into the bounded ingest capacity, applying the configured
+   * overload policy when the capacity is exhausted. Every admitted trade must be released with
+   * {@link #releaseTrade()}.
+   *
+   * @param symbol the symbol of the stock being traded
+   * @return true if the trade was admitted, false if it was shed
+   */
+  boolean admitTrade(String symbol);
+
+  /** Releases the ingest capacity held by an admitted trade. */
+  void releaseTrade();
+
+  /**
+   * Admits an analytic query into the capacity reserved for queries, so reads keep progressing
+   * while trade ingest is saturated. Every admitted query must be released with {@link
+   * #releaseQuery()}.
+   */
+  void admitQuery();
+
+  /** Releases the query capacity held by an admitted query. */
+  void releaseQuery();
+
+  /**
+   * Sets the policy applied when the ingest capacity is exhausted.
+   *
+   * @param overloadPolicy the policy to apply
+   */
+  void setOverloadPolicy(OverloadPolicy overloadPolicy);
+
+  /**
+   * Sets the priority of a stock. Under the SHED policy, trades for stocks at or below the shed
+   * priority are dropped first.
+   *
+   * @param symbol the symbol of the stock
+   * @param priority the priority of the stock, higher is more important
+   */
+  void setSymbolPriority(String symbol, int priority);
+
+  /**
+   * Sets the priority at or below which trades may be shed. Nothing is shed until this is set.
+   *
+   * @param shedPriority the highest priority that may be shed
+   */
+  void setShedPriority(int shedPriority);
+
+  /** @return the current queue depths and admission counters */
+  AdmissionMetrics getMetrics();
+}
@@ -1,6 +1,9 @@
 package broker.services.contracts;
 
+import broker.models.profile.ValueArea;
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
 
 public interface FinancialAnalysisService {
   /**
@@ -27,6 +30,41 @@ public interface FinancialAnalysisService {
    */
   BigDecimal getVolumeWeightedStockPrice(String symbol);
 
+  /**
+   * Gets the volume weighted stock prices of the given stocks, calculated in parallel over the
+   * same 15 minute window.
+   *
+   * @param symbols the symbols of the stocks
+   * @return the VolumeWeightedStockPrice in the last 15 minutes keyed by symbol, leaving out any
+   *     symbol which is not registered
+   */
+  Map<String, BigDecimal> getVolumeWeightedStockPrices(Collection<String> symbols);
+
+  /**
+   * Gets the volume weighted price of the trades of every registered stock in the last 15
+   * minutes.
+   *
+   * @return the market wide VolumeWeightedStockPrice in the last 15 minutes.
+   */
+  BigDecimal getMarketVolumeWeightedPrice();
+
+  /**
+   * Gets the price level of a given stock with the most volume traded in the last 15 minutes.
+   *
+   * @param symbol the symbol of the stock
+   * @return the point of control, zero if there are no trades
+   */
+  BigDecimal getPointOfControl(String symbol);
+
+  /**
+   * Gets the range of price levels around the point of control holding 70% of the volume of a
+   * given stock traded in the last 15 minutes.
+   *
+   * @param symbol the symbol of the stock
+   * @return the ValueArea, with zero prices and volume if there are no trades
+   */
+  ValueArea getValueArea(String symbol);
+
   /**
    * Calculates the GBCE all share index value based on the prices of all the registered stocks in
    * the market.
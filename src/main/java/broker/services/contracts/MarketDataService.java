@@ -0,0 +1,36 @@
+package broker.services.contracts;
+
+import java.math.BigDecimal;
+
+public interface MarketDataService {
+  /**
+   * Queues a price tick for a stock. Ticks are conflated per symbol, so only the latest tick
+   * queued for a symbol before the next {@link #applyPendingTicks()} cycle is applied.
+   *
+   * @param symbol the symbol of the stock
+   * @param price the new last price of the stock
+   */
+  void onPriceTick(String symbol, BigDecimal price);
+
+  /**
+   * Applies the conflated ticks queued since the last cycle as a single market snapshot update,
+   * refreshing the All Share Index incrementally from the changed prices. Queued ticks are not
+   * applied until this is called, either by the tick cycle of the engine or by the caller.
+   *
+   * @return the number of stocks whose price was updated
+   */
+  int applyPendingTicks();
+
+  /** @return the number of symbols with a tick waiting for the next cycle */
+  int getPendingTickCount();
+
+  /**
+   * Sets whether every recorded trade also queues a price tick at the traded price.
+   *
+   * @param priceFromTrades true to update the last price from recorded trades
+   */
+  void setPriceFromTrades(boolean priceFromTrades);
+
+  /** @return true if recorded trades update the last price */
+  boolean isPriceFromTrades();
+}
@@ -0,0 +1,47 @@
+package broker.services.contracts;
+
+import java.math.BigDecimal;
+
+public interface RollingStatisticsService extends FinancialAnalysisService {
+  /**
+   * Gets the volatility of a given stock, the standard deviation of the log returns between its
+   * trades in the last 15 minutes.
+   *
+   * @param symbol the symbol of the stock
+   * @return the rolling volatility, zero if there are fewer than three trades
+   */
+  BigDecimal getRollingVolatility(String symbol);
+
+  /**
+   * Gets the mean price of the trades of a given stock in the last 15 minutes.
+   *
+   * @param symbol the symbol of the stock
+   * @return the simple moving average, zero if there are no trades
+   */
+  BigDecimal getSimpleMovingAverage(String symbol);
+
+  /**
+   * Gets the exponential moving average of the trade price of a given stock, decayed by the time
+   * between trades.
+   *
+   * @param symbol the symbol of the stock
+   * @return the exponential moving average, zero if there are no trades
+   */
+  BigDecimal getExponentialMovingAverage(String symbol);
+
+  /**
+   * Gets the highest price the given stock traded at in the last 15 minutes.
+   *
+   * @param symbol the symbol of the stock
+   * @return the rolling high, zero if there are no trades
+   */
+  BigDecimal getRollingHigh(String symbol);
+
+  /**
+   * Gets the lowest price the given stock traded at in the last 15 minutes.
+   *
+   * @param symbol the symbol of the stock
+   * @return the rolling low, zero if there are no trades
+   */
+  BigDecimal getRollingLow(String symbol);
+}
@@ -1,7 +1,11 @@
 package broker.services.contracts;
 
+import broker.models.snapshot.MarketSnapshot;
 import broker.models.stocks.Stock;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface StockManagementService {
   /**
@@ -11,6 +15,14 @@ public interface StockManagementService {
    */
   void registerStock(Stock stock);
 
+  /**
+   * Registers several stocks to the stock market and publishes them as a single new market
+   * snapshot. Nothing is registered if any of the stocks has already been registered.
+   *
+   * @param stocks the stocks to be registered
+   */
+  void registerStocks(Collection<? extends Stock> stocks);
+
   /**
    * Deregister a stock from this market service.
    *
@@ -31,4 +43,34 @@ public interface StockManagementService {
 
   /** Clears the HashMap containing all registered stocks */
   void flush();
+
+  /**
+   * Adds a listener told the symbol of every stock deregistered or flushed, so state kept per
+   * symbol elsewhere can be dropped with it.
+   *
+   * @param listener the listener to add
+   */
+  void addDeregistrationListener(Consumer<String> listener);
+
+  /**
+   * Gets the latest market snapshot. The snapshot is immutable, so multi-symbol reads against it
+   * see a single consistent version of the market. A registered Stock changed through its setters
+   * publishes its new quote as it changes, so reads take no locks.
+   *
+   * @return the latest MarketSnapshot
+   */
+  MarketSnapshot getMarketSnapshot();
+
+  /** Publishes a new market snapshot rebuilt from the current state of the registered stocks. */
+  void publishSnapshot();
+
+  /**
+   * Sets the prices of the given stocks and publishes them as a single new market snapshot. The
+   * index terms of the snapshot are updated from the changed prices only. Symbols which are no
+   * longer registered are ignored.
+   *
+   * @param prices the new prices keyed by stock symbol
+   * @return the number of stocks whose price was updated
+   */
+  int updatePrices(Map<String, BigDecimal> prices);
 }
@@ -21,6 +21,8 @@ public interface TradeService {
    *
    * @param stock the stock to search
    * @return the TradeLedger for the last 15 minutes
+   * @throws broker.exceptions.BusinessException if the market keeps only the volume profile of
+   *     each stock rather than its raw trades
    */
   List<TradeLedger> getLast15MinutesTrades(Stock stock);
 }
@@ -0,0 +1,154 @@
+package broker.services.impls;
+
+import static broker.constants.ServiceConstants.DEFAULT_ADMISSION_WAIT_MILLIS;
+import static broker.constants.ServiceConstants.DEFAULT_INGEST_CAPACITY;
+import static broker.constants.ServiceConstants.DEFAULT_QUERY_CAPACITY;
+import static broker.constants.ServiceConstants.DEFAULT_RETRY_AFTER_MILLIS;
+import static broker.constants.ServiceConstants.DEFAULT_SHED_PRIORITY;
+import static broker.constants.ServiceConstants.DEFAULT_SYMBOL_PRIORITY;
+
+import broker.exceptions.OverloadException;
+import broker.models.admission.AdmissionMetrics;
+import broker.models.admission.OverloadPolicy;
+import broker.services.contracts.AdmissionControlService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AdmissionControlServiceImpl implements AdmissionControlService {
+
+  private final int ingestCapacity;
+  private final int queryCapacity;
+  private final long admissionWaitMillis;
+  private final long retryAfterMillis;
+
+  private final Semaphore ingestPermits;
+  private final Semaphore queryPermits;
+  private final Map<String, Integer> symbolPriorities;
+
+  private final AtomicLong admittedTrades = new AtomicLong();
+  private final AtomicLong rejectedTrades = new AtomicLong();
+  private final AtomicLong shedTrades = new AtomicLong();
+  private final AtomicLong rejectedQueries = new AtomicLong();
+
+  private volatile OverloadPolicy overloadPolicy;
+  private volatile int shedPriority;
+
+  public AdmissionControlServiceImpl() {
+    this(
+        DEFAULT_INGEST_CAPACITY,
+        DEFAULT_QUERY_CAPACITY,
+        DEFAULT_ADMISSION_WAIT_MILLIS,
+        DEFAULT_RETRY_AFTER_MILLIS);
+  }
+
+  public AdmissionControlServiceImpl(
+      final int ingestCapacity,
+      final int queryCapacity,
+      final long admissionWaitMillis,
+      final long retryAfterMillis) {
+    this.ingestCapacity = ingestCapacity;
+    this.queryCapacity = queryCapacity;
+    this.admissionWaitMillis = admissionWaitMillis;
+    this.retryAfterMillis = retryAfterMillis;
+    this.ingestPermits = new Semaphore(ingestCapacity, true);
+    this.queryPermits = new Semaphore(queryCapacity, true);
+    this.symbolPriorities = new ConcurrentHashMap<>();
+    this.overloadPolicy = OverloadPolicy.BLOCK;
+    this.shedPriority = DEFAULT_SHED_PRIORITY;
+  }
+
+  @Override
+  public boolean admitTrade(final String symbol) {
+    if (this.acquire(this.ingestPermits, 0)) {
+      this.admittedTrades.incrementAndGet();
+      return true;
+    }
+
+    final OverloadPolicy policy = this.overloadPolicy;
+    if (policy == OverloadPolicy.REJECT) {
+      this.rejectedTrades.incrementAndGet();
+      throw new OverloadException(
+          "Trade ingest is at capacity, the trade for " + symbol + " has been rejected.",
+          this.retryAfterMillis);
+    }
+    if (policy == OverloadPolicy.SHED
+        && this.symbolPriorities.getOrDefault(symbol, DEFAULT_SYMBOL_PRIORITY)
+            <= this.shedPriority) {
+      this.shedTrades.incrementAndGet();
+      return false;
+    }
+
+    if (!this.acquire(this.ingestPermits, this.admissionWaitMillis)) {
+      this.rejectedTrades.incrementAndGet();
+      throw new OverloadException(
+          "Timed out waiting for trade ingest capacity for the stock " + symbol + ".",
+          this.retryAfterMillis);
+    }
+    this.admittedTrades.incrementAndGet();
+    return true;
+  }
+
+  @Override
+  public void releaseTrade() {
+    this.ingestPermits.release();
+  }
+
+  @Override
+  public void admitQuery() {
+    if (!this.acquire(this.queryPermits, 0)
+        && !this.acquire(this.queryPermits, this.admissionWaitMillis)) {
+      this.rejectedQueries.incrementAndGet();
+      throw new OverloadException(
+          "Timed out waiting for query capacity, please retry later.", this.retryAfterMillis);
+    }
+  }
+
+  @Override
+  public void releaseQuery() {
+    this.queryPermits.release();
+  }
+
+  @Override
+  public void setOverloadPolicy(final OverloadPolicy overloadPolicy) {
+    this.overloadPolicy = overloadPolicy;
+  }
+
+  @Override
+  public void setSymbolPriority(final String symbol, final int priority) {
+    this.symbolPriorities.put(symbol, priority);
+  }
+
+  @Override
+  public void setShedPriority(final int shedPriority) {
+    this.shedPriority = shedPriority;
+  }
+
+  @Override
+  public AdmissionMetrics getMetrics() {
+    return new AdmissionMetrics(
+        this.ingestCapacity - this.ingestPermits.availablePermits(),
+        this.ingestPermits.getQueueLength(),
+        this.queryCapacity - this.queryPermits.availablePermits(),
+        this.queryPermits.getQueueLength(),
+        this.admittedTrades.get(),
+        this.rejectedTrades.get(),
+        this.shedTrades.get(),
+        this.rejectedQueries.get());
+  }
+
+  /**
+   * Waits for a permit in turn. A timed tryAcquire honours the fairness of the semaphore even with
+   * no wait, where the untimed tryAcquire would take a permit ahead of the threads queued for it.
+   */
+  private boolean acquire(final Semaphore permits, final long waitMillis) {
+    try {
+      return permits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -1,46 +1,66 @@
 package broker.services.impls;
 
 import static broker.constants.ServiceConstants.PRECISION_SCALE;
+import static broker.constants.ServiceConstants.VALUE_AREA_PERCENT;
 import static java.math.BigDecimal.ROUND_HALF_EVEN;
 
 import broker.exceptions.BusinessException;
 import broker.exceptions.InvalidValueException;
-import broker.models.stocks.CommonStock;
-import broker.models.stocks.PreferredStock;
-import broker.models.stocks.Stock;
-import broker.models.trades.TradeLedger;
-import broker.services.contracts.FinancialAnalysisService;
+import broker.models.profile.ValueArea;
+import broker.models.profile.VolumeProfile;
+import broker.models.profile.VolumeTotals;
+import broker.models.snapshot.MarketSnapshot;
+import broker.models.snapshot.StockQuote;
+import broker.models.statistics.RollingStatistics;
+import broker.models.statistics.StatisticType;
+import broker.services.contracts.AdmissionControlService;
+import broker.services.contracts.RollingStatisticsService;
 import broker.services.contracts.StockManagementService;
-import broker.services.contracts.TradeService;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
 
-@Service
-public class FinancialAnalysisServiceImpl implements FinancialAnalysisService {
+public class FinancialAnalysisServiceImpl implements RollingStatisticsService {
 
-  @Autowired private StockManagementService stockManagementService;
-  @Autowired private TradeService tradeService;
+  private final StockManagementService stockManagementService;
+  private final AdmissionControlService admissionControlService;
+  private final RollingStatisticsTracker rollingStatisticsTracker;
+  private final VolumeProfileTracker volumeProfileTracker;
+
+  public FinancialAnalysisServiceImpl(
+      final StockManagementService stockManagementService,
+      final AdmissionControlService admissionControlService,
+      final RollingStatisticsTracker rollingStatisticsTracker,
+      final VolumeProfileTracker volumeProfileTracker) {
+    this.stockManagementService = stockManagementService;
+    this.admissionControlService = admissionControlService;
+    this.rollingStatisticsTracker = rollingStatisticsTracker;
+    this.volumeProfileTracker = volumeProfileTracker;
+  }
 
   @Override
   public BigDecimal getDividendYield(final String symbol, final BigDecimal price) {
 
-    final Stock stock = this.stockManagementService.getStockBySymbol(symbol);
+    final StockQuote quote = this.quoteOf(symbol);
 
     this.isNumberPositive(price);
 
-    BigDecimal result = BigDecimal.ZERO;
-    if (stock instanceof CommonStock) {
-      final CommonStock commonStock = (CommonStock) stock;
-      result = commonStock.getLastDividend().divide(price, PRECISION_SCALE, ROUND_HALF_EVEN);
-    } else if (stock instanceof PreferredStock) {
-      final PreferredStock preferredStock = (PreferredStock) stock;
+    final BigDecimal result;
+    if (quote.getFixedDividend() == null) {
+      result = quote.getLastDividend().divide(price, PRECISION_SCALE, ROUND_HALF_EVEN);
+    } else {
       result =
-          preferredStock
+          quote
               .getFixedDividend()
-              .multiply(stock.getParValue())
+              .multiply(quote.getParValue())
               .divide(price, PRECISION_SCALE, ROUND_HALF_EVEN);
     }
 
@@ -49,85 +69,321 @@ public class FinancialAnalysisServiceImpl implements FinancialAnalysisService {
 
   @Override
   public BigDecimal getPeRatio(final String symbol, final BigDecimal price) {
-    final Stock stock = this.stockManagementService.getStockBySymbol(symbol);
+    final StockQuote quote = this.quoteOf(symbol);
 
     this.isNumberPositive(price);
 
     final BigDecimal result;
-    if (BigDecimal.ZERO.compareTo(stock.getLastDividend()) >= 0) {
+    if (BigDecimal.ZERO.compareTo(quote.getLastDividend()) >= 0) {
       throw new BusinessException(
           "Cannot calculate P/E Ratio for the stock " + symbol + "since the dividend is ZERO.");
     }
-    result = price.divide(stock.getLastDividend(), PRECISION_SCALE, ROUND_HALF_EVEN);
+    result = price.divide(quote.getLastDividend(), PRECISION_SCALE, ROUND_HALF_EVEN);
     return result.setScale(3, ROUND_HALF_EVEN);
   }
 
   @Override
   public BigDecimal getVolumeWeightedStockPrice(final String symbol) {
+    this.admissionControlService.admitQuery();
+    try {
+      return this.calculateVolumeWeightedStockPrice(symbol);
+    } finally {
+      this.admissionControlService.releaseQuery();
+    }
+  }
 
-    final Stock stock = this.stockManagementService.getStockBySymbol(symbol);
+  private BigDecimal calculateVolumeWeightedStockPrice(final String symbol) {
+    this.stockManagementService.getStockBySymbol(symbol);
+    final long now = System.currentTimeMillis();
+    return this.calculateTradeTotals(symbol, now).toVolumeWeightedPrice();
+  }
+
+  @Override
+  public Map<String, BigDecimal> getVolumeWeightedStockPrices(final Collection<String> symbols) {
+    this.admissionControlService.admitQuery();
+    try {
+      final MarketSnapshot snapshot = this.stockManagementService.getMarketSnapshot();
+      final List<String> quoted = new ArrayList<>();
+      for (final String symbol : new LinkedHashSet<>(symbols)) {
+        if (snapshot.getQuotes().containsKey(symbol)) {
+          quoted.add(symbol);
+        }
+      }
 
-    BigDecimal result = BigDecimal.ZERO;
-    final List<TradeLedger> tradeLedger = this.tradeService.getLast15MinutesTrades(stock);
-    if (tradeLedger.isEmpty()) {
+      final long now = System.currentTimeMillis();
+      final BigDecimal[] prices = new BigDecimal[quoted.size()];
+      IntStream.range(0, prices.length)
+          .parallel()
+          .forEach(
+              i ->
+                  prices[i] =
+                      this.calculateTradeTotals(quoted.get(i), now).toVolumeWeightedPrice());
+
+      final Map<String, BigDecimal> result = new HashMap<>(prices.length * 4 / 3 + 1);
+      for (int i = 0; i < prices.length; i++) {
+        result.put(quoted.get(i), prices[i]);
+      }
       return result;
+    } finally {
+      this.admissionControlService.releaseQuery();
     }
+  }
 
-    BigDecimal runningPriceTotal = BigDecimal.ZERO;
-    BigInteger runningQuantityTotal = BigInteger.ZERO;
+  @Override
+  public BigDecimal getMarketVolumeWeightedPrice() {
+    this.admissionControlService.admitQuery();
+    try {
+      final MarketSnapshot snapshot = this.stockManagementService.getMarketSnapshot();
+      final long now = System.currentTimeMillis();
+      return snapshot
+          .getQuotes()
+          .keySet()
+          .parallelStream()
+          .map(symbol -> this.calculateTradeTotals(symbol, now))
+          .reduce(TradeTotals.EMPTY, TradeTotals::add)
+          .toVolumeWeightedPrice();
+    } finally {
+      this.admissionControlService.releaseQuery();
+    }
+  }
 
-    for (final TradeLedger record : tradeLedger) {
-      final BigDecimal price = record.getPrice();
-      this.isNumberPositive(price);
-      final BigDecimal quantity = new BigDecimal(record.getQuantity());
-      this.isNumberPositive(quantity);
+  private TradeTotals calculateTradeTotals(final String symbol, final long now) {
+    final VolumeProfile volumeProfile = this.volumeProfileTracker.profileOf(symbol);
+    if (volumeProfile == null) {
+      return TradeTotals.EMPTY;
+    }
+    final VolumeTotals totals = volumeProfile.getTotals(now);
+    return new TradeTotals(totals.getNotional(), totals.getVolume());
+  }
 
-      runningPriceTotal = runningPriceTotal.add(price.multiply(quantity));
-      runningQuantityTotal = runningQuantityTotal.add(record.getQuantity());
+  @Override
+  public BigDecimal getPointOfControl(final String symbol) {
+    this.admissionControlService.admitQuery();
+    try {
+      return this.calculatePointOfControl(symbol);
+    } finally {
+      this.admissionControlService.releaseQuery();
     }
-    result = runningPriceTotal.divide(new BigDecimal(runningQuantityTotal), PRECISION_SCALE, 3);
-    return result.setScale(0, ROUND_HALF_EVEN);
+  }
+
+  private BigDecimal calculatePointOfControl(final String symbol) {
+    this.stockManagementService.getStockBySymbol(symbol);
+    final long now = System.currentTimeMillis();
+
+    BigDecimal pointOfControl = BigDecimal.ZERO;
+    BigInteger maxVolume = BigInteger.ZERO;
+    for (final Map.Entry<BigDecimal, BigInteger> level : this.priceLevelsOf(symbol, now)) {
+      if (level.getValue().compareTo(maxVolume) > 0) {
+        pointOfControl = level.getKey();
+        maxVolume = level.getValue();
+      }
+    }
+    return pointOfControl;
+  }
+
+  @Override
+  public ValueArea getValueArea(final String symbol) {
+    this.admissionControlService.admitQuery();
+    try {
+      return this.calculateValueArea(symbol);
+    } finally {
+      this.admissionControlService.releaseQuery();
+    }
+  }
+
+  private ValueArea calculateValueArea(final String symbol) {
+    this.stockManagementService.getStockBySymbol(symbol);
+    final long now = System.currentTimeMillis();
+    final List<Map.Entry<BigDecimal, BigInteger>> levels =
+        new ArrayList<>(this.priceLevelsOf(symbol, now));
+    if (levels.isEmpty()) {
+      return new ValueArea(BigDecimal.ZERO, BigDecimal.ZERO, BigInteger.ZERO);
+    }
+
+    BigInteger totalVolume = BigInteger.ZERO;
+    int pointOfControl = 0;
+    for (int i = 0; i < levels.size(); i++) {
+      totalVolume = totalVolume.add(levels.get(i).getValue());
+      if (levels.get(i).getValue().compareTo(levels.get(pointOfControl).getValue()) > 0) {
+        pointOfControl = i;
+      }
+    }
+    final BigInteger targetVolume = totalVolume.multiply(BigInteger.valueOf(VALUE_AREA_PERCENT));
+
+    // Grow outwards from the point of control, taking the busier neighbouring level each time.
+    int low = pointOfControl;
+    int high = pointOfControl;
+    BigInteger volume = levels.get(pointOfControl).getValue();
+    while (volume.multiply(BigInteger.valueOf(100)).compareTo(targetVolume) < 0) {
+      final BigInteger below = low > 0 ? levels.get(low - 1).getValue() : BigInteger.ZERO;
+      final BigInteger above =
+          high < levels.size() - 1 ? levels.get(high + 1).getValue() : BigInteger.ZERO;
+      if (high == levels.size() - 1 || (low > 0 && below.compareTo(above) > 0)) {
+        volume = volume.add(below);
+        low--;
+      } else {
+        volume = volume.add(above);
+        high++;
+      }
+    }
+    return new ValueArea(levels.get(low).getKey(), levels.get(high).getKey(), volume);
+  }
+
+  private Set<Map.Entry<BigDecimal, BigInteger>> priceLevelsOf(
+      final String symbol, final long now) {
+    final VolumeProfile volumeProfile = this.volumeProfileTracker.profileOf(symbol);
+    if (volumeProfile == null) {
+      return Collections.emptySet();
+    }
+    return volumeProfile.getPriceLevels(now).entrySet();
   }
 
   @Override
   public BigDecimal getAllShareIndex() {
-    if (this.stockManagementService.getAllStocks().isEmpty()) {
+    this.admissionControlService.admitQuery();
+    try {
+      return this.calculateAllShareIndex();
+    } finally {
+      this.admissionControlService.releaseQuery();
+    }
+  }
+
+  private BigDecimal calculateAllShareIndex() {
+    final MarketSnapshot snapshot = this.stockManagementService.getMarketSnapshot();
+    if (snapshot.getQuotes().isEmpty()) {
       throw new BusinessException("There are no stocks available to purchase at the moment.");
     }
 
-    BigDecimal accumulate = BigDecimal.ONE;
-    final int totalNumberOfStocks = this.stockManagementService.getAllStocks().size();
+    if (snapshot.getNonPositivePriceCount() > 0) {
+      throw new InvalidValueException(
+          "Found " + snapshot.getNonPositivePriceCount() + " stocks with a non-positive price.");
+    }
 
-    for (final Stock stock : this.stockManagementService.getAllStocks().values()) {
-      final BigDecimal price = stock.getPrice();
-      this.isNumberPositive(price);
-      accumulate = accumulate.multiply(price);
+    // The snapshot keeps the sum of the log prices up to date as prices change, so the geometric
+    // mean is a single exp rather than a product over every stock.
+    final BigDecimal index =
+        BigDecimal.valueOf(Math.exp(snapshot.getLogPriceSum() / snapshot.getQuotes().size()));
+    return index.setScale(0, ROUND_HALF_EVEN);
+  }
+
+  private StockQuote quoteOf(final String symbol) {
+    final StockQuote quote = this.stockManagementService.getMarketSnapshot().getQuotes().get(symbol);
+    if (quote == null) {
+      throw new BusinessException(
+          "Cannot find the stock " + symbol + " in the market. Please register the stock first");
+    }
+    return quote;
+  }
+
+  @Override
+  public BigDecimal getRollingVolatility(final String symbol) {
+    this.admissionControlService.admitQuery();
+    try {
+      final RollingStatistics statistics = this.statisticsOf(symbol, StatisticType.VOLATILITY);
+      if (statistics == null) {
+        return BigDecimal.ZERO;
+      }
+      return this.toResult(statistics.getVolatility(System.currentTimeMillis()));
+    } finally {
+      this.admissionControlService.releaseQuery();
     }
+  }
 
-    BigDecimal index = accumulate.divide(accumulate, ROUND_HALF_EVEN);
-    BigDecimal temp;
-    final BigDecimal e = new BigDecimal("0.1");
+  @Override
+  public BigDecimal getSimpleMovingAverage(final String symbol) {
+    this.admissionControlService.admitQuery();
+    try {
+      final RollingStatistics statistics =
+          this.statisticsOf(symbol, StatisticType.SIMPLE_MOVING_AVERAGE);
+      if (statistics == null) {
+        return BigDecimal.ZERO;
+      }
+      return this.toResult(statistics.getSimpleMovingAverage(System.currentTimeMillis()));
+    } finally {
+      this.admissionControlService.releaseQuery();
+    }
+  }
 
-    do {
-      temp = index;
-      index =
-          index.add(
-              accumulate
-                  .subtract(index.pow(totalNumberOfStocks))
-                  .divide(
-                      new BigDecimal(totalNumberOfStocks)
-                          .multiply(index.pow(totalNumberOfStocks - 1)),
-                      PRECISION_SCALE,
-                      ROUND_HALF_EVEN));
-    } while (index.subtract(temp).abs().compareTo(e) > 0);
+  @Override
+  public BigDecimal getExponentialMovingAverage(final String symbol) {
+    this.admissionControlService.admitQuery();
+    try {
+      final RollingStatistics statistics =
+          this.statisticsOf(symbol, StatisticType.EXPONENTIAL_MOVING_AVERAGE);
+      if (statistics == null) {
+        return BigDecimal.ZERO;
+      }
+      return this.toResult(statistics.getExponentialMovingAverage());
+    } finally {
+      this.admissionControlService.releaseQuery();
+    }
+  }
 
-    return index.setScale(0, ROUND_HALF_EVEN);
+  @Override
+  public BigDecimal getRollingHigh(final String symbol) {
+    this.admissionControlService.admitQuery();
+    try {
+      final RollingStatistics statistics = this.statisticsOf(symbol, StatisticType.HIGH_LOW);
+      final BigDecimal high =
+          statistics == null ? null : statistics.getHigh(System.currentTimeMillis());
+      return high == null ? BigDecimal.ZERO : high;
+    } finally {
+      this.admissionControlService.releaseQuery();
+    }
+  }
+
+  @Override
+  public BigDecimal getRollingLow(final String symbol) {
+    this.admissionControlService.admitQuery();
+    try {
+      final RollingStatistics statistics = this.statisticsOf(symbol, StatisticType.HIGH_LOW);
+      final BigDecimal low =
+          statistics == null ? null : statistics.getLow(System.currentTimeMillis());
+      return low == null ? BigDecimal.ZERO : low;
+    } finally {
+      this.admissionControlService.releaseQuery();
+    }
   }
 
   @Override
   public void isNumberPositive(final BigDecimal value) {
-    if (value == null || BigDecimal.ZERO.compareTo(value) >= 0) {
-      throw new InvalidValueException("Found non-positive value: " + value);
+    Validations.requirePositive(value);
+  }
+
+  private RollingStatistics statisticsOf(final String symbol, final StatisticType statistic) {
+    this.stockManagementService.getStockBySymbol(symbol);
+    return this.rollingStatisticsTracker.statisticsOf(symbol, statistic);
+  }
+
+  private BigDecimal toResult(final double value) {
+    return BigDecimal.valueOf(value).setScale(PRECISION_SCALE, ROUND_HALF_EVEN);
+  }
+
+  /** The traded value and quantity of a set of trades, combined to give their VWAP. */
+  private static final class TradeTotals {
+
+    private static final TradeTotals EMPTY = new TradeTotals(BigDecimal.ZERO, BigInteger.ZERO);
+
+    private final BigDecimal priceTotal;
+    private final BigInteger quantityTotal;
+
+    TradeTotals(final BigDecimal priceTotal, final BigInteger quantityTotal) {
+      this.priceTotal = priceTotal;
+      this.quantityTotal = quantityTotal;
+    }
+
+    TradeTotals add(final TradeTotals other) {
+      return new TradeTotals(
+          this.priceTotal.add(other.priceTotal), this.quantityTotal.add(other.quantityTotal));
+    }
+
+    BigDecimal toVolumeWeightedPrice() {
+      if (this.quantityTotal.signum() == 0) {
+        return BigDecimal.ZERO;
+      }
+      final BigDecimal result =
+          this.priceTotal.divide(new BigDecimal(this.quantityTotal), PRECISION_SCALE, 3);
+      return result.setScale(0, ROUND_HALF_EVEN);
     }
   }
 }
@@ -0,0 +1,72 @@
+package broker.services.impls;
+
+import broker.services.contracts.MarketDataService;
+import broker.services.contracts.StockManagementService;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MarketDataServiceImpl implements MarketDataService {
+
+  private final StockManagementService stockManagementService;
+
+  private final Map<String, BigDecimal> pendingTicks = new ConcurrentHashMap<>();
+
+  private volatile boolean priceFromTrades;
+
+  public MarketDataServiceImpl(final StockManagementService stockManagementService) {
+    this.stockManagementService = stockManagementService;
+  }
+
+  @Override
+  public void onPriceTick(final String symbol, final BigDecimal price) {
+    this.stockManagementService.getStockBySymbol(symbol);
+    Validations.requirePositive(price);
+
+    this.queueTick(symbol, price);
+  }
+
+  /**
+   * Queues a price tick the caller has already checked against a registered stock, without
+   * looking the stock up again. The trade service uses it from inside the admitted part of
+   * recording a trade, so a stock deregistered just after its trade was stored cannot fail it.
+   *
+   * @param symbol the symbol of the stock
+   * @param price the new last price of the stock, already known to be positive
+   */
+  void queueTick(final String symbol, final BigDecimal price) {
+    this.pendingTicks.put(symbol, price);
+  }
+
+  @Override
+  public synchronized int applyPendingTicks() {
+    final Map<String, BigDecimal> ticks = new HashMap<>();
+    for (final String symbol : this.pendingTicks.keySet()) {
+      final BigDecimal price = this.pendingTicks.remove(symbol);
+      if (price != null) {
+        ticks.put(symbol, price);
+      }
+    }
+
+    if (ticks.isEmpty()) {
+      return 0;
+    }
+    return this.stockManagementService.updatePrices(ticks);
+  }
+
+  @Override
+  public int getPendingTickCount() {
+    return this.pendingTicks.size();
+  }
+
+  @Override
+  public void setPriceFromTrades(final boolean priceFromTrades) {
+    this.priceFromTrades = priceFromTrades;
+  }
+
+  @Override
+  public boolean isPriceFromTrades() {
+    return this.priceFromTrades;
+  }
+}
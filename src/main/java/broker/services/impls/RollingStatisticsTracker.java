@@ -0,0 +1,76 @@
+package broker.services.impls;
+
+import static broker.constants.ServiceConstants.TRADE_WINDOW_MILLIS;
+
+import broker.exceptions.BusinessException;
+import broker.models.statistics.RollingStatistics;
+import broker.models.statistics.StatisticType;
+import broker.models.stocks.Stock;
+import broker.models.trades.TradeLedger;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Maintains the configured set of rolling statistics of each stock as its trades are recorded. */
+public class RollingStatisticsTracker {
+
+  private final Set<StatisticType> statistics;
+  private final long emaHalfLifeMillis;
+
+  /** The statistics of each stock which has traded, keyed by symbol. */
+  private final Map<String, RollingStatistics> statisticsBySymbol = new ConcurrentHashMap<>();
+
+  public RollingStatisticsTracker(
+      final Set<StatisticType> statistics, final long emaHalfLifeMillis) {
+    this.statistics =
+        Collections.unmodifiableSet(
+            statistics.isEmpty()
+                ? EnumSet.noneOf(StatisticType.class)
+                : EnumSet.copyOf(statistics));
+    this.emaHalfLifeMillis = emaHalfLifeMillis;
+  }
+
+  /**
+   * Folds a recorded trade into the statistics of its stock.
+   *
+   * @param stock the traded stock
+   * @param record the recorded trade
+   */
+  public void record(final Stock stock, final TradeLedger record) {
+    if (this.statistics.isEmpty()) {
+      return;
+    }
+    final RollingStatistics rollingStatistics =
+        this.statisticsBySymbol.computeIfAbsent(
+            stock.getSymbol(),
+            symbol ->
+                new RollingStatistics(this.statistics, TRADE_WINDOW_MILLIS, this.emaHalfLifeMillis));
+    rollingStatistics.add(
+        record.getTimestamp().getTime(), record.getPrice(), System.currentTimeMillis());
+  }
+
+  /**
+   * Gets the rolling statistics of a stock, checking the requested statistic is maintained.
+   *
+   * @param symbol the symbol of the stock to look up
+   * @param statistic the statistic about to be read
+   * @return the RollingStatistics of the stock, null if it has not traded yet
+   */
+  public RollingStatistics statisticsOf(final String symbol, final StatisticType statistic) {
+    if (!this.statistics.contains(statistic)) {
+      throw new BusinessException("The statistic " + statistic + " is not being maintained.");
+    }
+    return this.statisticsBySymbol.get(symbol);
+  }
+
+  /**
+   * Drops the statistics of a stock which has left the market.
+   *
+   * @param symbol the symbol of the stock
+   */
+  public void remove(final String symbol) {
+    this.statisticsBySymbol.remove(symbol);
+  }
+}
@@ -1,50 +1,103 @@
 package broker.services.impls;
 
 import broker.exceptions.BusinessException;
+import broker.models.snapshot.MarketSnapshot;
+import broker.models.snapshot.StockQuote;
+import broker.models.stocks.PreferredStock;
 import broker.models.stocks.Stock;
 import broker.services.contracts.StockManagementService;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import org.springframework.stereotype.Service;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
-@Service
 public class StockManagementServiceImpl implements StockManagementService {
 
   private Map<String, Stock> stockMap;
 
+  private volatile MarketSnapshot marketSnapshot;
+
+  /** Attached to every registered stock, kept so only this market's listener is detached. */
+  private final Consumer<Stock> changeListener;
+
+  private final List<Consumer<String>> deregistrationListeners;
+
+  /** Set while updatePrices publishes its own snapshot, so its setter calls are not published. */
+  private boolean updatingPrices;
+
   public StockManagementServiceImpl() {
-    this.stockMap = new HashMap<>();
+    this.stockMap = new ConcurrentHashMap<>();
+    this.changeListener = this::onStockChanged;
+    this.deregistrationListeners = new CopyOnWriteArrayList<>();
+    this.marketSnapshot = new MarketSnapshot(0, Collections.emptyMap(), 0, 0);
   }
 
   @Override
   public void registerStock(final Stock stock) {
-    final String errorMessage = "The stock " + stock.getSymbol() + " has already been registered.";
-    if (this.stockMap.containsKey(stock.getSymbol())) {
-      throw new BusinessException(errorMessage);
+    this.registerStocks(Collections.singletonList(stock));
+  }
+
+  @Override
+  public synchronized void registerStocks(final Collection<? extends Stock> stocks) {
+    final Set<String> symbols = new HashSet<>();
+    for (final Stock stock : stocks) {
+      if (this.stockMap.containsKey(stock.getSymbol()) || !symbols.add(stock.getSymbol())) {
+        throw new BusinessException(
+            "The stock " + stock.getSymbol() + " has already been registered.");
+      }
+    }
+
+    final List<Stock> attached = new ArrayList<>();
+    for (final Stock stock : stocks) {
+      if (!stock.attachChangeListener(this.changeListener)) {
+        for (final Stock registered : attached) {
+          registered.detachChangeListener(this.changeListener);
+        }
+        throw new BusinessException(
+            "The stock " + stock.getSymbol() + " is already registered with another market.");
+      }
+      attached.add(stock);
     }
-    this.stockMap.put(stock.getSymbol(), stock);
+
+    final SnapshotBuilder builder = new SnapshotBuilder(this.marketSnapshot);
+    for (final Stock stock : stocks) {
+      this.stockMap.put(stock.getSymbol(), stock);
+      builder.put(this.toQuote(stock));
+    }
+    this.publish(builder);
   }
 
   @Override
-  public void deregisterStock(final String stockSymbol) {
+  public synchronized void deregisterStock(final String stockSymbol) {
     if (!this.stockMap.containsKey(stockSymbol)) {
       final String errorMessage = "The stock " + stockSymbol + " has not been registered.";
       throw new BusinessException(errorMessage);
     }
-    this.stockMap.remove(stockSymbol);
+    this.stockMap.remove(stockSymbol).detachChangeListener(this.changeListener);
+    this.fireDeregistered(stockSymbol);
+
+    final SnapshotBuilder builder = new SnapshotBuilder(this.marketSnapshot);
+    builder.remove(stockSymbol);
+    this.publish(builder);
   }
 
   @Override
   public Map<String, Stock> getAllStocks() {
-    return this.stockMap;
+    return Collections.unmodifiableMap(this.stockMap);
   }
 
   @Override
   public Stock getStockBySymbol(final String symbol) {
-    final Stock stock;
-    if (this.stockMap.containsKey(symbol)) {
-      stock = this.stockMap.get(symbol);
-    } else {
+    final Stock stock = this.stockMap.get(symbol);
+    if (stock == null) {
       throw new BusinessException(
           "Cannot find the stock " + symbol + " in the market. Please register the stock first");
     }
@@ -52,7 +105,131 @@ public class StockManagementServiceImpl implements StockManagementService {
   }
 
   @Override
-  public void flush() {
+  public synchronized void flush() {
+    for (final Stock stock : this.stockMap.values()) {
+      stock.detachChangeListener(this.changeListener);
+      this.fireDeregistered(stock.getSymbol());
+    }
     this.stockMap.clear();
+    this.publish(new SnapshotBuilder());
+  }
+
+  @Override
+  public void addDeregistrationListener(final Consumer<String> listener) {
+    this.deregistrationListeners.add(listener);
+  }
+
+  @Override
+  public MarketSnapshot getMarketSnapshot() {
+    return this.marketSnapshot;
+  }
+
+  @Override
+  public synchronized void publishSnapshot() {
+    final SnapshotBuilder builder = new SnapshotBuilder();
+    for (final Stock stock : this.stockMap.values()) {
+      builder.put(this.toQuote(stock));
+    }
+    this.publish(builder);
+  }
+
+  @Override
+  public synchronized int updatePrices(final Map<String, BigDecimal> prices) {
+    final SnapshotBuilder builder = new SnapshotBuilder(this.marketSnapshot);
+    int updated = 0;
+    this.updatingPrices = true;
+    try {
+      for (final Map.Entry<String, BigDecimal> entry : prices.entrySet()) {
+        final Stock stock = this.stockMap.get(entry.getKey());
+        if (stock == null) {
+          continue;
+        }
+        stock.setPrice(entry.getValue());
+        builder.put(this.toQuote(stock));
+        updated++;
+      }
+    } finally {
+      this.updatingPrices = false;
+    }
+    this.publish(builder);
+    return updated;
+  }
+
+  private void fireDeregistered(final String symbol) {
+    for (final Consumer<String> listener : this.deregistrationListeners) {
+      listener.accept(symbol);
+    }
+  }
+
+  /** Publishes the quote of a registered stock changed through its setters. */
+  private synchronized void onStockChanged(final Stock stock) {
+    if (this.updatingPrices || this.stockMap.get(stock.getSymbol()) != stock) {
+      return;
+    }
+    final SnapshotBuilder builder = new SnapshotBuilder(this.marketSnapshot);
+    builder.put(this.toQuote(stock));
+    this.publish(builder);
+  }
+
+  private void publish(final SnapshotBuilder builder) {
+    this.marketSnapshot =
+        new MarketSnapshot(
+            this.marketSnapshot.getVersion() + 1,
+            Collections.unmodifiableMap(builder.quotes),
+            builder.logPriceSum,
+            builder.nonPositivePriceCount);
+  }
+
+  private StockQuote toQuote(final Stock stock) {
+    final BigDecimal fixedDividend =
+        stock instanceof PreferredStock ? ((PreferredStock) stock).getFixedDividend() : null;
+    return new StockQuote(
+        stock.getSymbol(),
+        stock.getLastDividend(),
+        stock.getParValue(),
+        stock.getPrice(),
+        fixedDividend);
+  }
+
+  /** Copies the quotes of a snapshot and keeps its index terms in step with every change. */
+  private static class SnapshotBuilder {
+
+    private final Map<String, StockQuote> quotes;
+    private double logPriceSum;
+    private int nonPositivePriceCount;
+
+    SnapshotBuilder() {
+      this.quotes = new HashMap<>();
+    }
+
+    SnapshotBuilder(final MarketSnapshot snapshot) {
+      this.quotes = new HashMap<>(snapshot.getQuotes());
+      this.logPriceSum = snapshot.getLogPriceSum();
+      this.nonPositivePriceCount = snapshot.getNonPositivePriceCount();
+    }
+
+    void put(final StockQuote quote) {
+      this.remove(quote.getSymbol());
+      this.quotes.put(quote.getSymbol(), quote);
+      this.addTerm(quote.getPrice(), 1);
+    }
+
+    void remove(final String symbol) {
+      final StockQuote previous = this.quotes.remove(symbol);
+      if (previous != null) {
+        this.addTerm(previous.getPrice(), -1);
+      }
+      if (this.quotes.isEmpty()) {
+        this.logPriceSum = 0;
+      }
+    }
+
+    private void addTerm(final BigDecimal price, final int sign) {
+      if (price == null || BigDecimal.ZERO.compareTo(price) >= 0) {
+        this.nonPositivePriceCount += sign;
+      } else {
+        this.logPriceSum += sign * Math.log(price.doubleValue());
+      }
+    }
   }
 }
@@ -1,9 +1,12 @@
 package broker.services.impls;
 
+import static broker.constants.ServiceConstants.TRADE_WINDOW_MILLIS;
+
+import broker.exceptions.BusinessException;
 import broker.models.stocks.Stock;
 import broker.models.trades.BuySellEnum;
 import broker.models.trades.TradeLedger;
-import broker.services.contracts.FinancialAnalysisService;
+import broker.services.contracts.AdmissionControlService;
 import broker.services.contracts.StockManagementService;
 import broker.services.contracts.TradeService;
 import java.math.BigDecimal;
@@ -11,14 +14,27 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
 
-@Service
 public class TradeServiceImpl implements TradeService {
 
-  @Autowired private StockManagementService stockService;
-  @Autowired private FinancialAnalysisService financialAnalysisService;
+  private final StockManagementService stockService;
+  private final AdmissionControlService admissionControlService;
+  private final MarketDataServiceImpl marketDataService;
+  private final RollingStatisticsTracker rollingStatisticsTracker;
+  private final VolumeProfileTracker volumeProfileTracker;
+
+  public TradeServiceImpl(
+      final StockManagementService stockService,
+      final AdmissionControlService admissionControlService,
+      final MarketDataServiceImpl marketDataService,
+      final RollingStatisticsTracker rollingStatisticsTracker,
+      final VolumeProfileTracker volumeProfileTracker) {
+    this.stockService = stockService;
+    this.admissionControlService = admissionControlService;
+    this.marketDataService = marketDataService;
+    this.rollingStatisticsTracker = rollingStatisticsTracker;
+    this.volumeProfileTracker = volumeProfileTracker;
+  }
 
   @Override
   public void recordTrade(
@@ -27,22 +43,45 @@ public class TradeServiceImpl implements TradeService {
       final BigInteger quantity,
       final BuySellEnum indicator,
       final BigDecimal price) {
-    final Stock stock = this.stockService.getStockBySymbol(symbol);
+    // The permit covers the whole of the ingest work, so the capacity bounds the trades in flight.
+    if (!this.admissionControlService.admitTrade(symbol)) {
+      return;
+    }
+    try {
+      final Stock stock = this.stockService.getStockBySymbol(symbol);
 
-    this.financialAnalysisService.isNumberPositive(price);
-    this.financialAnalysisService.isNumberPositive(new BigDecimal(quantity));
+      Validations.requirePositive(price);
+      Validations.requirePositive(new BigDecimal(quantity));
 
-    final TradeLedger record = new TradeLedger(symbol, timestamp, quantity, indicator, price);
-    stock.addNewTrade(record);
+      final TradeLedger record = new TradeLedger(symbol, timestamp, quantity, indicator, price);
+      if (this.volumeProfileTracker.isRetainingRawTrades()) {
+        stock.addNewTrade(record);
+      }
+      this.volumeProfileTracker.record(stock, record);
+      this.rollingStatisticsTracker.record(stock, record);
+
+      if (this.marketDataService.isPriceFromTrades()) {
+        this.marketDataService.queueTick(symbol, price);
+      }
+    } finally {
+      this.admissionControlService.releaseTrade();
+    }
   }
 
   @Override
   public List<TradeLedger> getLast15MinutesTrades(final Stock stock) {
+    if (!this.volumeProfileTracker.isRetainingRawTrades()) {
+      throw new BusinessException(
+          "Raw trades are not retained by this market, only the volume profile of each stock.");
+    }
     final List<TradeLedger> result = new ArrayList<>();
-    final Date currentTime = new Date();
-    for (final TradeLedger record : stock.getTradeLedger()) {
-      if (currentTime.getTime() - record.getTimestamp().getTime() <= 15 * 60 * 1000) {
-        result.add(record);
+    final long cutoff = System.currentTimeMillis() - TRADE_WINDOW_MILLIS;
+    final List<TradeLedger> tradeLedger = stock.getTradeLedger();
+    synchronized (tradeLedger) {
+      for (final TradeLedger record : tradeLedger) {
+        if (record.getTimestamp().getTime() >= cutoff) {
+          result.add(record);
+        }
       }
     }
 
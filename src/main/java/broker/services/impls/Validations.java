@@ -0,0 +1,20 @@
+package broker.services.impls;
+
+import broker.exceptions.InvalidValueException;
+import java.math.BigDecimal;
+
+final class Validations {
+
+  private Validations() {}
+
+  /**
+   * Validates the given value is positive.
+   *
+   * @param value the value to be checked
+   */
+  static void requirePositive(final BigDecimal value) {
+    if (value == null || BigDecimal.ZERO.compareTo(value) >= 0) {
+      throw new InvalidValueException("Found non-positive value: " + value);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package broker.services.impls;
+
+import static broker.constants.ServiceConstants.TRADE_WINDOW_MILLIS;
+
+import broker.models.profile.VolumeProfile;
+import broker.models.stocks.Stock;
+import broker.models.trades.TradeLedger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Maintains the volume-at-price profile of each stock as its trades are recorded. */
+public class VolumeProfileTracker {
+
+  private final long bucketMillis;
+  private final boolean retainRawTrades;
+
+  /** The profile of each stock which has traded, keyed by symbol. */
+  private final Map<String, VolumeProfile> profiles = new ConcurrentHashMap<>();
+
+  public VolumeProfileTracker(final long bucketMillis, final boolean retainRawTrades) {
+    this.bucketMillis = bucketMillis;
+    this.retainRawTrades = retainRawTrades;
+  }
+
+  /**
+   * Adds a recorded trade to the profile of its stock.
+   *
+   * @param stock the traded stock
+   * @param record the recorded trade
+   */
+  public void record(final Stock stock, final TradeLedger record) {
+    final VolumeProfile volumeProfile =
+        this.profiles.computeIfAbsent(
+            stock.getSymbol(),
+            symbol ->
+                new VolumeProfile(this.bucketMillis, TRADE_WINDOW_MILLIS, this.retainRawTrades));
+    volumeProfile.add(
+        record.getTimestamp().getTime(),
+        record.getPrice(),
+        record.getQuantity(),
+        System.currentTimeMillis());
+  }
+
+  /**
+   * Gets the volume profile of a stock.
+   *
+   * @param symbol the symbol of the stock to look up
+   * @return the VolumeProfile of the stock, null if it has not traded yet
+   */
+  public VolumeProfile profileOf(final String symbol) {
+    return this.profiles.get(symbol);
+  }
+
+  /**
+   * Drops the profile of a stock which has left the market.
+   *
+   * @param symbol the symbol of the stock
+   */
+  public void remove(final String symbol) {
+    this.profiles.remove(symbol);
+  }
+
+  /**
+   * @return true if every trade is also kept in the stock's trade ledger, false if only the
+   *     profile is kept
+   */
+  public boolean isRetainingRawTrades() {
+    return this.retainRawTrades;
+  }
+}
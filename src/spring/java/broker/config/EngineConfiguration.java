@@ -0,0 +1,45 @@
+package broker.config;
+
+import broker.engine.StockMarketEngine;
+import broker.services.contracts.AdmissionControlService;
+import broker.services.contracts.MarketDataService;
+import broker.services.contracts.RollingStatisticsService;
+import broker.services.contracts.StockManagementService;
+import broker.services.contracts.TradeService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/** Exposes the services of a {@link StockMarketEngine} as Spring beans. */
+@Configuration
+public class EngineConfiguration {
+
+  @Bean
+  public StockMarketEngine stockMarketEngine() {
+    return StockMarketEngine.builder().build();
+  }
+
+  @Bean
+  public StockManagementService stockManagementService(final StockMarketEngine engine) {
+    return engine.getStockManagementService();
+  }
+
+  @Bean
+  public AdmissionControlService admissionControlService(final StockMarketEngine engine) {
+    return engine.getAdmissionControlService();
+  }
+
+  @Bean
+  public MarketDataService marketDataService(final StockMarketEngine engine) {
+    return engine.getMarketDataService();
+  }
+
+  @Bean
+  public TradeService tradeService(final StockMarketEngine engine) {
+    return engine.getTradeService();
+  }
+
+  @Bean
+  public RollingStatisticsService financialAnalysisService(final StockMarketEngine engine) {
+    return engine.getRollingStatisticsService();
+  }
+}
@@ -0,0 +1,71 @@
+package broker.loadtest;
+
+import broker.Application;
+import broker.engine.StockMarketEngine;
+import broker.services.contracts.FinancialAnalysisService;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Measures how long the market takes to become usable and how much memory it holds, either as a
+ * plain {@link StockMarketEngine} or inside a Spring Boot context. Run each mode in a fresh JVM
+ * with {@code ./gradlew startupProbe -Pmode=engine} or {@code -Pmode=spring}.
+ */
+public class StartupProbe {
+
+  public static void main(final String[] args) throws Exception {
+    final String mode = args.length > 0 ? args[0] : "engine";
+    final long start = System.nanoTime();
+
+    final FinancialAnalysisService financialAnalysisService;
+    ConfigurableApplicationContext context = null;
+    if ("engine".equals(mode)) {
+      financialAnalysisService = StockMarketEngine.builder().build().getFinancialAnalysisService();
+    } else if ("spring".equals(mode)) {
+      context =
+          new SpringApplicationBuilder(Application.class).web(WebApplicationType.NONE).run(args);
+      financialAnalysisService = context.getBean(FinancialAnalysisService.class);
+    } else {
+      throw new IllegalArgumentException("Expected engine or spring but found " + mode);
+    }
+
+    final double startupMillis = (System.nanoTime() - start) / 1e6;
+    final long jvmUptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+    System.gc();
+    final long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+    System.out.printf(
+        "mode=%s startup=%.1fms jvm.uptime=%dms heap.used=%dKB rss=%s service=%s%n",
+        mode,
+        startupMillis,
+        jvmUptimeMillis,
+        heapUsed / 1024,
+        residentSetSize(),
+        financialAnalysisService.getClass().getSimpleName());
+
+    if (context != null) {
+      context.close();
+    }
+  }
+
+  /** @return the resident set size of the process, read from procfs where available */
+  private static String residentSetSize() throws IOException {
+    final Path status = Paths.get("/proc/self/status");
+    if (!Files.isReadable(status)) {
+      return "unavailable";
+    }
+    for (final String line : Files.readAllLines(status, StandardCharsets.UTF_8)) {
+      if (line.startsWith("VmRSS:")) {
+        return line.substring("VmRSS:".length()).trim().replace(" ", "");
+      }
+    }
+    return "unavailable";
+  }
+}
@@ -0,0 +1,182 @@
+package broker.engine;
+
+import static broker.utils.TestUtils.COMMON_STOCK;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import broker.exceptions.BusinessException;
+import broker.exceptions.OverloadException;
+import broker.models.admission.OverloadPolicy;
+import broker.models.statistics.StatisticType;
+import broker.models.stocks.CommonStock;
+import broker.models.trades.BuySellEnum;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class StockMarketEngineTest {
+
+  @Test
+  public void build_WiresServicesWithoutContainer() {
+    final StockMarketEngine engine = StockMarketEngine.builder().priceFromTrades(true).build();
+    engine
+        .getStockManagementService()
+        .registerStock(
+            new CommonStock(COMMON_STOCK, BigDecimal.ONE, BigDecimal.ONE, new BigDecimal(10)));
+    engine
+        .getTradeService()
+        .recordTrade(
+            COMMON_STOCK, new Date(), new BigInteger("10"), BuySellEnum.BUY, new BigDecimal(16));
+    engine.getMarketDataService().applyPendingTicks();
+
+    assertEquals(
+        new BigDecimal(16),
+        engine.getFinancialAnalysisService().getVolumeWeightedStockPrice(COMMON_STOCK));
+    assertEquals(new BigDecimal(16), engine.getFinancialAnalysisService().getAllShareIndex());
+  }
+
+  @Test
+  public void build_TickCycleAppliesQueuedTicks() throws InterruptedException {
+    final CommonStock stock =
+        new CommonStock(COMMON_STOCK, BigDecimal.ONE, BigDecimal.ONE, new BigDecimal(10));
+    try (StockMarketEngine engine = StockMarketEngine.builder().tickIntervalMillis(5).build()) {
+      engine.getStockManagementService().registerStock(stock);
+      engine.getMarketDataService().onPriceTick(COMMON_STOCK, new BigDecimal(12));
+
+      final long deadline = System.currentTimeMillis() + 5000;
+      while (!new BigDecimal(12).equals(stock.getPrice())
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(5);
+      }
+      assertEquals(0, engine.getMarketDataService().getPendingTickCount());
+    }
+    assertEquals(new BigDecimal(12), stock.getPrice());
+  }
+
+  @Test
+  public void build_TickCycleSurvivesFailedCycle() throws InterruptedException {
+    final CountDownLatch failed = new CountDownLatch(1);
+    final CommonStock stock =
+        new CommonStock(COMMON_STOCK, BigDecimal.ONE, BigDecimal.ONE, new BigDecimal(10)) {
+          @Override
+          public void setPrice(final BigDecimal price) {
+            if (failed.getCount() > 0) {
+              failed.countDown();
+              throw new IllegalStateException("Failing the first cycle");
+            }
+            super.setPrice(price);
+          }
+        };
+    try (StockMarketEngine engine = StockMarketEngine.builder().tickIntervalMillis(5).build()) {
+      engine.getStockManagementService().registerStock(stock);
+      engine.getMarketDataService().onPriceTick(COMMON_STOCK, new BigDecimal(12));
+      assertTrue(failed.await(5, TimeUnit.SECONDS));
+      engine.getMarketDataService().onPriceTick(COMMON_STOCK, new BigDecimal(13));
+
+      final long deadline = System.currentTimeMillis() + 5000;
+      while (!new BigDecimal(13).equals(stock.getPrice())
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(5);
+      }
+    }
+    assertEquals(new BigDecimal(13), stock.getPrice());
+  }
+
+  @Test(expected = OverloadException.class)
+  public void build_AppliesAdmissionSettings() {
+    final StockMarketEngine engine =
+        StockMarketEngine.builder().ingestCapacity(0).overloadPolicy(OverloadPolicy.REJECT).build();
+    engine
+        .getStockManagementService()
+        .registerStock(
+            new CommonStock(COMMON_STOCK, BigDecimal.ONE, BigDecimal.ONE, new BigDecimal(10)));
+    engine
+        .getTradeService()
+        .recordTrade(
+            COMMON_STOCK, new Date(), new BigInteger("10"), BuySellEnum.BUY, new BigDecimal(16));
+  }
+
+  @Test(expected = BusinessException.class)
+  public void build_MaintainsConfiguredStatisticsOnly() {
+    final StockMarketEngine engine =
+        StockMarketEngine.builder().statistics(StatisticType.HIGH_LOW).build();
+    engine
+        .getStockManagementService()
+        .registerStock(
+            new CommonStock(COMMON_STOCK, BigDecimal.ONE, BigDecimal.ONE, new BigDecimal(10)));
+    engine
+        .getTradeService()
+        .recordTrade(
+            COMMON_STOCK, new Date(), new BigInteger("10"), BuySellEnum.BUY, new BigDecimal(16));
+
+    assertEquals(
+        new BigDecimal(16), engine.getRollingStatisticsService().getRollingHigh(COMMON_STOCK));
+    engine.getRollingStatisticsService().getRollingVolatility(COMMON_STOCK);
+  }
+
+  @Test
+  public void build_ProfileOnlyWithoutRawTrades() {
+    final StockMarketEngine engine = StockMarketEngine.builder().retainRawTrades(false).build();
+    final CommonStock stock =
+        new CommonStock(COMMON_STOCK, BigDecimal.ONE, BigDecimal.ONE, new BigDecimal(10));
+    engine.getStockManagementService().registerStock(stock);
+    for (int i = 0; i < 100; i++) {
+      engine
+          .getTradeService()
+          .recordTrade(
+              COMMON_STOCK,
+              new Date(),
+              new BigInteger("10"),
+              BuySellEnum.BUY,
+              new BigDecimal(i % 2 == 0 ? 20 : 30));
+    }
+
+    assertEquals(0, stock.getTradeLedger().size());
+    assertEquals(
+        new BigDecimal(25),
+        engine.getFinancialAnalysisService().getVolumeWeightedStockPrice(COMMON_STOCK));
+    assertEquals(
+        new BigDecimal(20),
+        engine.getFinancialAnalysisService().getValueArea(COMMON_STOCK).getLow());
+    assertEquals(
+        new BigDecimal(30),
+        engine.getFinancialAnalysisService().getValueArea(COMMON_STOCK).getHigh());
+  }
+
+  @Test
+  public void build_DeregisterDropsTradeState() {
+    final StockMarketEngine engine = StockMarketEngine.builder().build();
+    engine
+        .getStockManagementService()
+        .registerStock(
+            new CommonStock(COMMON_STOCK, BigDecimal.ONE, BigDecimal.ONE, new BigDecimal(10)));
+    engine
+        .getTradeService()
+        .recordTrade(
+            COMMON_STOCK, new Date(), new BigInteger("10"), BuySellEnum.BUY, new BigDecimal(16));
+
+    engine.getStockManagementService().deregisterStock(COMMON_STOCK);
+    engine
+        .getStockManagementService()
+        .registerStock(
+            new CommonStock(COMMON_STOCK, BigDecimal.ONE, BigDecimal.ONE, new BigDecimal(10)));
+
+    assertEquals(
+        BigDecimal.ZERO,
+        engine.getFinancialAnalysisService().getVolumeWeightedStockPrice(COMMON_STOCK));
+    assertEquals(
+        BigDecimal.ZERO, engine.getRollingStatisticsService().getRollingHigh(COMMON_STOCK));
+  }
+
+  @Test(expected = BusinessException.class)
+  public void build_NoTradeHistoryWithoutRawTrades() {
+    final StockMarketEngine engine = StockMarketEngine.builder().retainRawTrades(false).build();
+    final CommonStock stock =
+        new CommonStock(COMMON_STOCK, BigDecimal.ONE, BigDecimal.ONE, new BigDecimal(10));
+    engine.getStockManagementService().registerStock(stock);
+    engine.getTradeService().getLast15MinutesTrades(stock);
+  }
+}
@@ -0,0 +1,47 @@
+package broker.loadtest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void getValueAtPercentile_WithinBucketPrecision() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value <= 100000; value++) {
+      histogram.record(value * 1000);
+    }
+    assertEquals(100000, histogram.getTotalCount());
+    assertEquals(100000000, histogram.getMaxValue());
+
+    final long median = histogram.getValueAtPercentile(50);
+    assertTrue(median >= 50000000 && median <= 50000000 * 1.04);
+    final long p99 = histogram.getValueAtPercentile(99);
+    assertTrue(p99 >= 99000000 && p99 <= 99000000 * 1.04);
+    assertEquals(100000000, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void recordSince_CountsDelayFromIntendedStart() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.recordSince(1000, 1000 + 31);
+    histogram.recordSince(0, 5000);
+    assertEquals(31, histogram.getValueAtPercentile(50));
+    assertEquals(5000, histogram.getMaxValue());
+  }
+
+  @Test
+  public void add_MergesCounts() {
+    final LatencyHistogram first = new LatencyHistogram();
+    final LatencyHistogram second = new LatencyHistogram();
+    first.record(10);
+    second.record(20);
+    second.record(30);
+    first.add(second);
+    assertEquals(3, first.getTotalCount());
+    assertEquals(20, first.getValueAtPercentile(50));
+    assertEquals(30, first.getMaxValue());
+  }
+}
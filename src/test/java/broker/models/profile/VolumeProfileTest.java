@@ -0,0 +1,84 @@
+package broker.models.profile;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.TreeMap;
+import org.junit.Test;
+
+public class VolumeProfileTest {
+
+  @Test
+  public void getTotals_ResolvesWindowEdgeFromRawTrades() {
+    final VolumeProfile profile = new VolumeProfile(1000, 10000, true);
+    this.add(profile, 100, 10, 5, 100);
+    this.add(profile, 800, 30, 5, 800);
+    this.add(profile, 1500, 20, 10, 1500);
+
+    // The window starts at 600, inside the first bucket: 100 is out and 800 is in.
+    final VolumeTotals totals = profile.getTotals(10600);
+    assertEquals(new BigDecimal(350), totals.getNotional());
+    assertEquals(BigInteger.valueOf(15), totals.getVolume());
+
+    final TreeMap<BigDecimal, BigInteger> levels = profile.getPriceLevels(10600);
+    assertEquals(2, levels.size());
+    assertEquals(BigInteger.valueOf(5), levels.get(new BigDecimal(30)));
+  }
+
+  @Test
+  public void getTotals_OutOfOrderTradeAtWindowEdge() {
+    final VolumeProfile profile = new VolumeProfile(1000, 10000, true);
+    this.add(profile, 5000, 20, 10, 5000);
+    this.add(profile, 800, 30, 5, 5000);
+
+    final VolumeTotals totals = profile.getTotals(10600);
+    assertEquals(new BigDecimal(350), totals.getNotional());
+    assertEquals(BigInteger.valueOf(15), totals.getVolume());
+
+    // A late trade in the straddling bucket still counts while it is inside the window.
+    this.add(profile, 700, 10, 5, 10600);
+    this.add(profile, 500, 10, 5, 10600);
+    assertEquals(BigInteger.valueOf(20), profile.getTotals(10600).getVolume());
+    assertEquals(BigInteger.valueOf(15), profile.getTotals(10750).getVolume());
+    assertEquals(BigInteger.TEN, profile.getTotals(11000).getVolume());
+  }
+
+  @Test
+  public void getTotals_ExcludesWindowEdgeWithoutRawTrades() {
+    final VolumeProfile profile = new VolumeProfile(1000, 10000, false);
+    this.add(profile, 100, 10, 5, 100);
+    this.add(profile, 800, 30, 5, 800);
+    this.add(profile, 1500, 20, 10, 1500);
+
+    final VolumeTotals totals = profile.getTotals(10600);
+    assertEquals(new BigDecimal(200), totals.getNotional());
+    assertEquals(BigInteger.TEN, totals.getVolume());
+  }
+
+  @Test
+  public void getTotals_RunningTotalsFollowEviction() {
+    final VolumeProfile profile = new VolumeProfile(1000, 10000, false);
+    for (int i = 0; i < 20; i++) {
+      this.add(profile, i * 1000, 10 + i % 3, 1, i * 1000);
+    }
+
+    // Buckets 10000 to 19000 remain: prices 11, 12, 10 repeating from 11.
+    final VolumeTotals totals = profile.getTotals(20000);
+    assertEquals(BigInteger.TEN, totals.getVolume());
+    assertEquals(new BigDecimal(110), totals.getNotional());
+    assertEquals(3, profile.getPriceLevels(20000).size());
+
+    assertEquals(BigInteger.ZERO, profile.getTotals(40000).getVolume());
+    assertEquals(0, profile.getPriceLevels(40000).size());
+  }
+
+  private void add(
+      final VolumeProfile profile,
+      final long timestamp,
+      final int price,
+      final int quantity,
+      final long now) {
+    profile.add(timestamp, new BigDecimal(price), BigInteger.valueOf(quantity), now);
+  }
+}
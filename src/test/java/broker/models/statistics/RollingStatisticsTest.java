@@ -0,0 +1,71 @@
+package broker.models.statistics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.EnumSet;
+import org.junit.Test;
+
+public class RollingStatisticsTest {
+
+  private final RollingStatistics statistics =
+      new RollingStatistics(EnumSet.allOf(StatisticType.class), 1000, 1000);
+
+  @Test
+  public void getVolatility_DropsReturnOfEvictedTrade() {
+    this.statistics.add(0, new BigDecimal(10), 0);
+    this.statistics.add(500, new BigDecimal(12), 500);
+    this.statistics.add(900, new BigDecimal(11), 900);
+    assertEquals(
+        Math.abs(Math.log(12.0 / 10) - Math.log(11.0 / 12)) / Math.sqrt(2),
+        this.statistics.getVolatility(900),
+        1e-12);
+
+    // Once 10 has left the window only the return from 12 to 11 remains.
+    assertEquals(0, this.statistics.getVolatility(1200), 0);
+  }
+
+  @Test
+  public void getVolatility_MatchesRecomputedWindow() {
+    this.statistics.add(0, new BigDecimal(10), 0);
+    this.statistics.add(500, new BigDecimal(12), 500);
+    this.statistics.add(900, new BigDecimal(11), 900);
+    this.statistics.add(1100, new BigDecimal(13), 1100);
+
+    final double first = Math.log(11.0 / 12);
+    final double second = Math.log(13.0 / 11);
+    final double mean = (first + second) / 2;
+    final double expected =
+        Math.sqrt((first - mean) * (first - mean) + (second - mean) * (second - mean));
+    assertEquals(expected, this.statistics.getVolatility(1100), 1e-12);
+    assertEquals(12, this.statistics.getSimpleMovingAverage(1100), 1e-12);
+    assertEquals(new BigDecimal(13), this.statistics.getHigh(1100));
+    assertEquals(new BigDecimal(11), this.statistics.getLow(1100));
+  }
+
+  @Test
+  public void add_LateTradeLeavesWithItsOwnTimestamp() {
+    this.statistics.add(900, new BigDecimal(12), 900);
+    this.statistics.add(100, new BigDecimal(10), 900);
+    assertEquals(11, this.statistics.getSimpleMovingAverage(1050), 1e-12);
+    assertEquals(new BigDecimal(10), this.statistics.getLow(1050));
+
+    // The VWAP window drops the late trade at 1100, so the rolling window does too.
+    assertEquals(12, this.statistics.getSimpleMovingAverage(1200), 1e-12);
+    assertEquals(new BigDecimal(12), this.statistics.getLow(1200));
+    assertEquals(new BigDecimal(12), this.statistics.getHigh(1200));
+  }
+
+  @Test
+  public void getVolatility_LateTradeTakesItsPlaceInOrder() {
+    this.statistics.add(0, new BigDecimal(10), 0);
+    this.statistics.add(800, new BigDecimal(12), 800);
+    this.statistics.add(400, new BigDecimal(11), 800);
+
+    final double first = Math.log(11.0 / 10);
+    final double second = Math.log(12.0 / 11);
+    assertEquals(
+        Math.abs(first - second) / Math.sqrt(2), this.statistics.getVolatility(800), 1e-12);
+    assertEquals(0, this.statistics.getVolatility(1200), 0);
+  }
+}
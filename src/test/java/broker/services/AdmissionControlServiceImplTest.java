@@ -0,0 +1,205 @@
+package broker.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import broker.exceptions.OverloadException;
+import broker.models.admission.AdmissionMetrics;
+import broker.models.admission.OverloadPolicy;
+import broker.models.statistics.StatisticType;
+import broker.models.stocks.Stock;
+import broker.models.trades.BuySellEnum;
+import broker.services.contracts.AdmissionControlService;
+import broker.services.contracts.RollingStatisticsService;
+import broker.services.contracts.StockManagementService;
+import broker.services.contracts.TradeService;
+import broker.services.impls.AdmissionControlServiceImpl;
+import broker.services.impls.FinancialAnalysisServiceImpl;
+import broker.services.impls.MarketDataServiceImpl;
+import broker.services.impls.RollingStatisticsTracker;
+import broker.services.impls.StockManagementServiceImpl;
+import broker.services.impls.TradeServiceImpl;
+import broker.services.impls.VolumeProfileTracker;
+import broker.utils.TestUtils;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdmissionControlServiceImplTest {
+
+  private AdmissionControlService admissionControlService;
+
+  @Before
+  public void setup() {
+    this.admissionControlService = new AdmissionControlServiceImpl(1, 1, 10, 25);
+  }
+
+  @Test
+  public void admitTrade_RejectWithRetryHint() {
+    this.admissionControlService.setOverloadPolicy(OverloadPolicy.REJECT);
+    assertTrue(this.admissionControlService.admitTrade(TestUtils.COMMON_STOCK));
+    try {
+      this.admissionControlService.admitTrade(TestUtils.COMMON_STOCK);
+    } catch (final OverloadException e) {
+      assertEquals(25, e.getRetryAfterMillis());
+      assertEquals(1, this.admissionControlService.getMetrics().getRejectedTrades());
+      return;
+    }
+    throw new AssertionError("Expected the second trade to be rejected");
+  }
+
+  @Test
+  public void admitTrade_ShedLowPriority() {
+    this.admissionControlService.setOverloadPolicy(OverloadPolicy.SHED);
+    this.admissionControlService.setSymbolPriority(TestUtils.COMMON_STOCK, 10);
+    this.admissionControlService.setShedPriority(0);
+    assertTrue(this.admissionControlService.admitTrade(TestUtils.COMMON_STOCK));
+    assertFalse(this.admissionControlService.admitTrade(TestUtils.PREFERRED_STOCK));
+
+    final AdmissionMetrics metrics = this.admissionControlService.getMetrics();
+    assertEquals(1, metrics.getIngestInFlight());
+    assertEquals(1, metrics.getAdmittedTrades());
+    assertEquals(1, metrics.getShedTrades());
+
+    this.admissionControlService.releaseTrade();
+    assertEquals(0, this.admissionControlService.getMetrics().getIngestInFlight());
+  }
+
+  @Test(expected = OverloadException.class)
+  public void admitTrade_BlockTimesOut() {
+    assertTrue(this.admissionControlService.admitTrade(TestUtils.COMMON_STOCK));
+    this.admissionControlService.admitTrade(TestUtils.COMMON_STOCK);
+  }
+
+  @Test
+  public void admitQuery_IndependentOfIngest() {
+    this.admissionControlService.setOverloadPolicy(OverloadPolicy.REJECT);
+    assertTrue(this.admissionControlService.admitTrade(TestUtils.COMMON_STOCK));
+    this.admissionControlService.admitQuery();
+    assertEquals(1, this.admissionControlService.getMetrics().getQueryInFlight());
+    this.admissionControlService.releaseQuery();
+  }
+
+  @Test(expected = OverloadException.class)
+  public void admitTrade_ShedNothingByDefault() {
+    this.admissionControlService.setOverloadPolicy(OverloadPolicy.SHED);
+    assertTrue(this.admissionControlService.admitTrade(TestUtils.COMMON_STOCK));
+    this.admissionControlService.admitTrade(TestUtils.PREFERRED_STOCK);
+  }
+
+  @Test
+  public void admitTrade_NewArrivalDoesNotOvertakeQueuedWaiter() throws Exception {
+    final AdmissionControlService admissionControlService =
+        new AdmissionControlServiceImpl(1, 1, 5000, 25);
+    assertTrue(admissionControlService.admitTrade(TestUtils.COMMON_STOCK));
+
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final Future<Boolean> waiter =
+          executor.submit(() -> admissionControlService.admitTrade(TestUtils.COMMON_STOCK));
+      final long deadline = System.currentTimeMillis() + 5000;
+      while (admissionControlService.getMetrics().getIngestQueueDepth() == 0
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(1);
+      }
+      assertEquals(1, admissionControlService.getMetrics().getIngestQueueDepth());
+
+      // The freed permit belongs to the queued waiter, so a new arrival is turned away.
+      admissionControlService.releaseTrade();
+      admissionControlService.setOverloadPolicy(OverloadPolicy.REJECT);
+      try {
+        admissionControlService.admitTrade(TestUtils.PREFERRED_STOCK);
+        throw new AssertionError("Expected the new arrival to queue behind the waiter");
+      } catch (final OverloadException e) {
+        assertTrue(waiter.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(expected = OverloadException.class)
+  public void getRollingHigh_RejectedWhileQueryExhausted() {
+    final StockManagementService stockService = new StockManagementServiceImpl();
+    stockService.registerStock(TestUtils.getDefaultCommonStock());
+    final RollingStatisticsService rollingStatisticsService =
+        new FinancialAnalysisServiceImpl(
+            stockService,
+            this.admissionControlService,
+            new RollingStatisticsTracker(EnumSet.allOf(StatisticType.class), 1000),
+            new VolumeProfileTracker(1000, true));
+
+    this.admissionControlService.admitQuery();
+    try {
+      rollingStatisticsService.getRollingHigh(TestUtils.COMMON_STOCK);
+    } finally {
+      this.admissionControlService.releaseQuery();
+    }
+  }
+
+  @Test
+  public void recordTrade_RejectedWhileIngestExhausted() throws Exception {
+    final CountDownLatch lookupStarted = new CountDownLatch(1);
+    final CountDownLatch lookupReleased = new CountDownLatch(1);
+    final StockManagementService stockService =
+        new StockManagementServiceImpl() {
+          @Override
+          public Stock getStockBySymbol(final String symbol) {
+            lookupStarted.countDown();
+            try {
+              lookupReleased.await();
+            } catch (final InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return super.getStockBySymbol(symbol);
+          }
+        };
+    stockService.registerStock(TestUtils.getDefaultCommonStock());
+    final TradeService tradeService =
+        new TradeServiceImpl(
+            stockService,
+            this.admissionControlService,
+            new MarketDataServiceImpl(stockService),
+            new RollingStatisticsTracker(EnumSet.allOf(StatisticType.class), 1000),
+            new VolumeProfileTracker(1000, true));
+    this.admissionControlService.setOverloadPolicy(OverloadPolicy.REJECT);
+
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final Future<?> slowTrade =
+          executor.submit(
+              () ->
+                  tradeService.recordTrade(
+                      TestUtils.COMMON_STOCK,
+                      new Date(),
+                      BigInteger.TEN,
+                      BuySellEnum.BUY,
+                      BigDecimal.TEN));
+      assertTrue(lookupStarted.await(5, TimeUnit.SECONDS));
+      assertEquals(1, this.admissionControlService.getMetrics().getIngestInFlight());
+      try {
+        tradeService.recordTrade(
+            TestUtils.COMMON_STOCK, new Date(), BigInteger.TEN, BuySellEnum.BUY, BigDecimal.TEN);
+        throw new AssertionError("Expected the trade to be rejected while ingest is exhausted");
+      } catch (final OverloadException e) {
+        assertEquals(1, this.admissionControlService.getMetrics().getRejectedTrades());
+      }
+
+      lookupReleased.countDown();
+      slowTrade.get(5, TimeUnit.SECONDS);
+      assertEquals(0, this.admissionControlService.getMetrics().getIngestInFlight());
+    } finally {
+      lookupReleased.countDown();
+      executor.shutdownNow();
+    }
+  }
+}
@@ -3,19 +3,24 @@ package broker.services;
 import static broker.utils.TestUtils.COMMON_STOCK;
 import static broker.utils.TestUtils.PREFERRED_STOCK;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import broker.exceptions.BusinessException;
 import broker.exceptions.InvalidValueException;
+import broker.models.profile.ValueArea;
 import broker.models.stocks.CommonStock;
 import broker.models.stocks.PreferredStock;
 import broker.models.trades.BuySellEnum;
 import broker.services.contracts.FinancialAnalysisService;
+import broker.services.contracts.RollingStatisticsService;
 import broker.services.contracts.StockManagementService;
 import broker.services.contracts.TradeService;
 import broker.utils.TestUtils;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -33,6 +38,8 @@ public class FinancialAnalysisServiceImplTest {
 
   @Autowired private TradeService tradeService;
 
+  @Autowired private RollingStatisticsService statisticsService;
+
   @Before
   public void setup() {
     this.stockService.flush();
@@ -130,6 +137,25 @@ public class FinancialAnalysisServiceImplTest {
         new BigDecimal(22), this.analysisService.getVolumeWeightedStockPrice(COMMON_STOCK));
   }
 
+  @Test
+  public void volumeWeightedStockPrice_ExcludesTradeJustOutsideWindow() {
+    this.stockService.registerStock(TestUtils.getDefaultCommonStock());
+    final long startTime = new Date().getTime();
+    this.tradeService.recordTrade(
+        COMMON_STOCK,
+        new Date(startTime - 15 * 1000 * 60 - 400),
+        new BigInteger("50"),
+        BuySellEnum.BUY,
+        new BigDecimal(100));
+    this.tradeService.recordTrade(
+        COMMON_STOCK,
+        new Date(startTime - 1000),
+        new BigInteger("10"),
+        BuySellEnum.BUY,
+        new BigDecimal(20));
+    assertEquals(new BigDecimal(20), this.analysisService.getVolumeWeightedStockPrice(COMMON_STOCK));
+  }
+
   @Test
   public void volumeWeightedStockPrice_NoTradeIn15Minutes() {
     final CommonStock commonStock = TestUtils.getDefaultCommonStock();
@@ -188,8 +214,158 @@ public class FinancialAnalysisServiceImplTest {
     this.analysisService.getAllShareIndex();
   }
 
+  @Test
+  public void getAllShareIndex_PriceSetAfterRegistration() {
+    final CommonStock commonStock1 =
+        new CommonStock(COMMON_STOCK + 1, BigDecimal.ZERO, BigDecimal.ZERO, new BigDecimal(4));
+    final CommonStock commonStock2 =
+        new CommonStock(COMMON_STOCK + 2, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+    this.stockService.registerStock(commonStock1);
+    this.stockService.registerStock(commonStock2);
+    commonStock2.setPrice(new BigDecimal(9));
+    assertEquals(new BigDecimal(6), this.analysisService.getAllShareIndex());
+  }
+
   @Test(expected = BusinessException.class)
   public void getAllShareIndex_NoStock() {
     assertEquals(BigDecimal.ZERO, this.analysisService.getAllShareIndex());
   }
+
+  @Test
+  public void rollingStatistics_CorrectCalculation() {
+    this.stockService.registerStock(TestUtils.getDefaultCommonStock());
+    final long startTime = new Date().getTime();
+    this.tradeService.recordTrade(
+        COMMON_STOCK,
+        new Date(startTime - 20 * 1000 * 60),
+        new BigInteger("10"),
+        BuySellEnum.BUY,
+        new BigDecimal(50));
+    this.tradeService.recordTrade(
+        COMMON_STOCK,
+        new Date(startTime - 3 * 1000 * 60),
+        new BigInteger("10"),
+        BuySellEnum.BUY,
+        new BigDecimal(10));
+    this.tradeService.recordTrade(
+        COMMON_STOCK,
+        new Date(startTime - 2 * 1000 * 60),
+        new BigInteger("10"),
+        BuySellEnum.SELL,
+        new BigDecimal(12));
+    this.tradeService.recordTrade(
+        COMMON_STOCK,
+        new Date(startTime - 1000 * 60),
+        new BigInteger("10"),
+        BuySellEnum.BUY,
+        new BigDecimal(11));
+
+    assertEquals(11, this.statisticsService.getSimpleMovingAverage(COMMON_STOCK).doubleValue(), 0);
+    assertEquals(
+        11, this.statisticsService.getExponentialMovingAverage(COMMON_STOCK).doubleValue(), 0);
+    assertEquals(new BigDecimal(12), this.statisticsService.getRollingHigh(COMMON_STOCK));
+    assertEquals(new BigDecimal(10), this.statisticsService.getRollingLow(COMMON_STOCK));
+
+    final double firstReturn = Math.log(1.2);
+    final double secondReturn = Math.log(11.0 / 12);
+    final double expectedVolatility = Math.abs(firstReturn - secondReturn) / Math.sqrt(2);
+    assertEquals(
+        expectedVolatility,
+        this.statisticsService.getRollingVolatility(COMMON_STOCK).doubleValue(),
+        1e-6);
+  }
+
+  @Test
+  public void rollingStatistics_NoTrades() {
+    this.stockService.registerStock(TestUtils.getDefaultCommonStock());
+    assertEquals(BigDecimal.ZERO, this.statisticsService.getRollingHigh(COMMON_STOCK));
+    assertEquals(BigDecimal.ZERO, this.statisticsService.getRollingVolatility(COMMON_STOCK));
+  }
+
+  @Test
+  public void volumeWeightedStockPrices_CorrectCalculation() {
+    this.stockService.registerStock(TestUtils.getDefaultCommonStock());
+    this.stockService.registerStock(TestUtils.getDefaultPreferredStock());
+    final long startTime = new Date().getTime();
+    this.tradeService.recordTrade(
+        COMMON_STOCK,
+        new Date(startTime - 5 * 1000 * 60),
+        new BigInteger("100"),
+        BuySellEnum.BUY,
+        new BigDecimal(22));
+    this.tradeService.recordTrade(
+        COMMON_STOCK,
+        new Date(startTime - 8 * 1000 * 60),
+        new BigInteger("10"),
+        BuySellEnum.SELL,
+        new BigDecimal(20));
+    this.tradeService.recordTrade(
+        PREFERRED_STOCK,
+        new Date(startTime - 9 * 1000 * 60),
+        new BigInteger("50"),
+        BuySellEnum.BUY,
+        new BigDecimal(50));
+    this.tradeService.recordTrade(
+        PREFERRED_STOCK,
+        new Date(startTime - 16 * 1000 * 60),
+        new BigInteger("3"),
+        BuySellEnum.SELL,
+        new BigDecimal(30));
+
+    final Map<String, BigDecimal> result =
+        this.analysisService.getVolumeWeightedStockPrices(
+            Arrays.asList(COMMON_STOCK, PREFERRED_STOCK, COMMON_STOCK));
+    assertEquals(2, result.size());
+    assertEquals(new BigDecimal(22), result.get(COMMON_STOCK));
+    assertEquals(new BigDecimal(50), result.get(PREFERRED_STOCK));
+    assertEquals(new BigDecimal(31), this.analysisService.getMarketVolumeWeightedPrice());
+  }
+
+  @Test
+  public void volumeWeightedStockPrices_UnknownStock() {
+    this.stockService.registerStock(TestUtils.getDefaultCommonStock());
+    this.tradeService.recordTrade(
+        COMMON_STOCK, new Date(), new BigInteger("10"), BuySellEnum.BUY, new BigDecimal(20));
+
+    final Map<String, BigDecimal> prices =
+        this.analysisService.getVolumeWeightedStockPrices(Arrays.asList(COMMON_STOCK, "UNKNOWN"));
+    assertEquals(1, prices.size());
+    assertEquals(new BigDecimal(20), prices.get(COMMON_STOCK));
+    assertFalse(prices.containsKey("UNKNOWN"));
+  }
+
+  @Test
+  public void marketVolumeWeightedPrice_NoTrades() {
+    this.stockService.registerStock(TestUtils.getDefaultCommonStock());
+    assertEquals(BigDecimal.ZERO, this.analysisService.getMarketVolumeWeightedPrice());
+  }
+
+  @Test
+  public void volumeProfile_PointOfControlAndValueArea() {
+    this.stockService.registerStock(TestUtils.getDefaultCommonStock());
+    final long startTime = new Date().getTime();
+    final int[][] trades = {{20, 10}, {21, 30}, {22, 50}, {22, 10}, {23, 25}, {24, 5}, {30, 100}};
+    for (int i = 0; i < trades.length; i++) {
+      final long minutesAgo = i == trades.length - 1 ? 20 : 2;
+      this.tradeService.recordTrade(
+          COMMON_STOCK,
+          new Date(startTime - minutesAgo * 1000 * 60),
+          BigInteger.valueOf(trades[i][1]),
+          BuySellEnum.BUY,
+          new BigDecimal(trades[i][0]));
+    }
+
+    assertEquals(new BigDecimal(22), this.analysisService.getPointOfControl(COMMON_STOCK));
+    final ValueArea valueArea = this.analysisService.getValueArea(COMMON_STOCK);
+    assertEquals(new BigDecimal(21), valueArea.getLow());
+    assertEquals(new BigDecimal(23), valueArea.getHigh());
+    assertEquals(BigInteger.valueOf(115), valueArea.getVolume());
+  }
+
+  @Test
+  public void volumeProfile_NoTrades() {
+    this.stockService.registerStock(TestUtils.getDefaultCommonStock());
+    assertEquals(BigDecimal.ZERO, this.analysisService.getPointOfControl(COMMON_STOCK));
+    assertEquals(BigInteger.ZERO, this.analysisService.getValueArea(COMMON_STOCK).getVolume());
+  }
 }
@@ -0,0 +1,110 @@
+package broker.services;
+
+import static broker.utils.TestUtils.COMMON_STOCK;
+import static broker.utils.TestUtils.PREFERRED_STOCK;
+import static org.junit.Assert.assertEquals;
+
+import broker.exceptions.BusinessException;
+import broker.exceptions.InvalidValueException;
+import broker.models.stocks.CommonStock;
+import broker.models.stocks.PreferredStock;
+import broker.models.trades.BuySellEnum;
+import broker.services.contracts.FinancialAnalysisService;
+import broker.services.contracts.MarketDataService;
+import broker.services.contracts.StockManagementService;
+import broker.services.contracts.TradeService;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class MarketDataServiceImplTest {
+
+  @Autowired private MarketDataService marketDataService;
+
+  @Autowired private StockManagementService stockService;
+
+  @Autowired private FinancialAnalysisService analysisService;
+
+  @Autowired private TradeService tradeService;
+
+  @Before
+  public void setup() {
+    this.stockService.flush();
+    this.marketDataService.applyPendingTicks();
+    this.marketDataService.setPriceFromTrades(false);
+  }
+
+  @Test
+  public void applyPendingTicks_ConflatesPerSymbol() {
+    final CommonStock stock =
+        new CommonStock(COMMON_STOCK, BigDecimal.ZERO, BigDecimal.ZERO, new BigDecimal(10));
+    this.stockService.registerStock(stock);
+    this.marketDataService.onPriceTick(COMMON_STOCK, new BigDecimal(11));
+    this.marketDataService.onPriceTick(COMMON_STOCK, new BigDecimal(12));
+    assertEquals(1, this.marketDataService.getPendingTickCount());
+
+    final long version = this.stockService.getMarketSnapshot().getVersion();
+    assertEquals(1, this.marketDataService.applyPendingTicks());
+    assertEquals(new BigDecimal(12), stock.getPrice());
+    assertEquals(version + 1, this.stockService.getMarketSnapshot().getVersion());
+    assertEquals(0, this.marketDataService.applyPendingTicks());
+  }
+
+  @Test
+  public void applyPendingTicks_RefreshesAllShareIndex() {
+    this.stockService.registerStock(
+        new CommonStock(COMMON_STOCK, BigDecimal.ZERO, BigDecimal.ZERO, new BigDecimal(20)));
+    this.stockService.registerStock(
+        new PreferredStock(
+            PREFERRED_STOCK, BigDecimal.ZERO, BigDecimal.ZERO, new BigDecimal(5), BigDecimal.ZERO));
+    assertEquals(new BigDecimal(10), this.analysisService.getAllShareIndex());
+
+    this.marketDataService.onPriceTick(PREFERRED_STOCK, new BigDecimal(45));
+    this.marketDataService.applyPendingTicks();
+    assertEquals(new BigDecimal(30), this.analysisService.getAllShareIndex());
+  }
+
+  @Test
+  public void recordTrade_UpdatesPriceWhenEnabled() {
+    final CommonStock stock =
+        new CommonStock(COMMON_STOCK, BigDecimal.ZERO, BigDecimal.ZERO, new BigDecimal(10));
+    this.stockService.registerStock(stock);
+    this.marketDataService.setPriceFromTrades(true);
+    this.tradeService.recordTrade(
+        COMMON_STOCK, new Date(), new BigInteger("10"), BuySellEnum.BUY, new BigDecimal(14));
+    this.marketDataService.applyPendingTicks();
+    assertEquals(new BigDecimal(14), stock.getPrice());
+  }
+
+  @Test
+  public void recordTrade_TickForDeregisteredStockIgnored() {
+    this.stockService.registerStock(
+        new CommonStock(COMMON_STOCK, BigDecimal.ZERO, BigDecimal.ZERO, new BigDecimal(10)));
+    this.marketDataService.setPriceFromTrades(true);
+    this.tradeService.recordTrade(
+        COMMON_STOCK, new Date(), new BigInteger("10"), BuySellEnum.BUY, new BigDecimal(14));
+    this.stockService.deregisterStock(COMMON_STOCK);
+    assertEquals(0, this.marketDataService.applyPendingTicks());
+    assertEquals(0, this.marketDataService.getPendingTickCount());
+  }
+
+  @Test(expected = InvalidValueException.class)
+  public void onPriceTick_InvalidPrice() {
+    this.stockService.registerStock(
+        new CommonStock(COMMON_STOCK, BigDecimal.ZERO, BigDecimal.ZERO, new BigDecimal(10)));
+    this.marketDataService.onPriceTick(COMMON_STOCK, BigDecimal.ZERO);
+  }
+
+  @Test(expected = BusinessException.class)
+  public void onPriceTick_UnknownStock() {
+    this.marketDataService.onPriceTick(COMMON_STOCK, new BigDecimal(10));
+  }
+}
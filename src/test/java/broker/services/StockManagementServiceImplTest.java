@@ -1,11 +1,17 @@
 package broker.services;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 import broker.exceptions.BusinessException;
+import broker.models.snapshot.MarketSnapshot;
 import broker.models.stocks.CommonStock;
 import broker.services.contracts.StockManagementService;
+import broker.services.impls.StockManagementServiceImpl;
 import broker.utils.TestUtils;
+import java.math.BigDecimal;
+import java.util.Arrays;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -41,8 +47,102 @@ public class StockManagementServiceImplTest {
     this.stockService.registerStock(stock);
   }
 
+  @Test(expected = BusinessException.class)
+  public void registerStock_RegisteredWithAnotherMarket() {
+    final CommonStock stock = TestUtils.getDefaultCommonStock();
+    new StockManagementServiceImpl().registerStock(stock);
+    this.stockService.registerStock(stock);
+  }
+
+  @Test
+  public void registerStocks_PublishesOnce() {
+    final MarketSnapshot snapshot = this.stockService.getMarketSnapshot();
+    this.stockService.registerStocks(
+        Arrays.asList(TestUtils.getDefaultCommonStock(), TestUtils.getDefaultPreferredStock()));
+
+    final MarketSnapshot latest = this.stockService.getMarketSnapshot();
+    assertEquals(snapshot.getVersion() + 1, latest.getVersion());
+    assertEquals(2, latest.getQuotes().size());
+    assertEquals(2, this.stockService.getAllStocks().size());
+  }
+
+  @Test
+  public void registerStocks_NothingRegisteredOnDuplicate() {
+    this.stockService.registerStock(TestUtils.getDefaultCommonStock());
+    final CommonStock other =
+        new CommonStock("OTHER", BigDecimal.ONE, BigDecimal.ONE, BigDecimal.TEN);
+    try {
+      this.stockService.registerStocks(Arrays.asList(other, TestUtils.getDefaultCommonStock()));
+      Assert.fail("Expected the duplicate to be rejected");
+    } catch (final BusinessException e) {
+      assertEquals(1, this.stockService.getAllStocks().size());
+      assertEquals(1, this.stockService.getMarketSnapshot().getQuotes().size());
+    }
+  }
+
   @Test(expected = BusinessException.class)
   public void deregisterStock_NonExistent() {
     this.stockService.deregisterStock(TestUtils.COMMON_STOCK);
   }
+
+  @Test
+  public void marketSnapshot_UnchangedByLaterWrites() {
+    final CommonStock stock = TestUtils.getDefaultCommonStock();
+    this.stockService.registerStock(stock);
+    final MarketSnapshot snapshot = this.stockService.getMarketSnapshot();
+
+    stock.setPrice(new BigDecimal(120));
+    this.stockService.registerStock(TestUtils.getDefaultPreferredStock());
+    this.stockService.publishSnapshot();
+
+    assertEquals(1, snapshot.getQuotes().size());
+    assertEquals(BigDecimal.ZERO, snapshot.getQuotes().get(TestUtils.COMMON_STOCK).getPrice());
+
+    final MarketSnapshot latest = this.stockService.getMarketSnapshot();
+    assertEquals(snapshot.getVersion() + 3, latest.getVersion());
+    assertEquals(2, latest.getQuotes().size());
+    assertEquals(new BigDecimal(120), latest.getQuotes().get(TestUtils.COMMON_STOCK).getPrice());
+  }
+
+  @Test
+  public void marketSnapshot_PicksUpSetterChanges() {
+    final CommonStock stock = TestUtils.getDefaultCommonStock();
+    this.stockService.registerStock(stock);
+    final MarketSnapshot snapshot = this.stockService.getMarketSnapshot();
+
+    stock.setPrice(new BigDecimal(120));
+    assertEquals(
+        new BigDecimal(120),
+        this.stockService.getMarketSnapshot().getQuotes().get(TestUtils.COMMON_STOCK).getPrice());
+    stock.setLastDividend(new BigDecimal(5));
+
+    // Each setter publishes from the writing thread, so reads publish nothing.
+    final MarketSnapshot latest = this.stockService.getMarketSnapshot();
+    assertEquals(snapshot.getVersion() + 2, latest.getVersion());
+    assertEquals(new BigDecimal(120), latest.getQuotes().get(TestUtils.COMMON_STOCK).getPrice());
+    assertEquals(
+        new BigDecimal(5), latest.getQuotes().get(TestUtils.COMMON_STOCK).getLastDividend());
+    assertEquals(latest.getVersion(), this.stockService.getMarketSnapshot().getVersion());
+  }
+
+  @Test
+  public void marketSnapshot_IgnoresDeregisteredStockChanges() {
+    final CommonStock stock = TestUtils.getDefaultCommonStock();
+    this.stockService.registerStock(stock);
+    this.stockService.deregisterStock(TestUtils.COMMON_STOCK);
+    final MarketSnapshot snapshot = this.stockService.getMarketSnapshot();
+
+    stock.setPrice(new BigDecimal(120));
+
+    assertEquals(snapshot.getVersion(), this.stockService.getMarketSnapshot().getVersion());
+  }
+
+  @Test
+  public void marketSnapshot_FlushPublishesEmptyVersion() {
+    this.stockService.registerStock(TestUtils.getDefaultCommonStock());
+    final MarketSnapshot snapshot = this.stockService.getMarketSnapshot();
+    this.stockService.flush();
+    assertNotEquals(snapshot.getVersion(), this.stockService.getMarketSnapshot().getVersion());
+    assertTrue(this.stockService.getMarketSnapshot().getQuotes().isEmpty());
+  }
 }